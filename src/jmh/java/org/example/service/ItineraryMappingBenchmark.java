@@ -0,0 +1,49 @@
+package org.example.service;
+
+import org.example.dto.ItineraryResponse;
+import org.example.model.entity.Itinerary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to response mapping, per itinerary and for a full list page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItineraryMappingBenchmark {
+
+    private ItineraryService itineraryService;
+    private List<Itinerary> page;
+
+    @Setup
+    public void setUp() {
+        itineraryService = new ItineraryService(null, null, null, null, null, null);
+        page = SyntheticItineraries.corpus(1L, 50, 2000, 42);
+    }
+
+    @Benchmark
+    public ItineraryResponse mapToResponse() {
+        return itineraryService.mapToResponse(page.get(0));
+    }
+
+    @Benchmark
+    public List<ItineraryResponse> mapPage() {
+        return page.stream().map(itineraryService::mapToResponse).collect(Collectors.toList());
+    }
+}
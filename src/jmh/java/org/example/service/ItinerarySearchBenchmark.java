@@ -0,0 +1,162 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.IndexRebuildStatus;
+import org.example.dto.ItineraryResponse;
+import org.example.model.entity.Itinerary;
+import org.example.model.projection.ItineraryIndexRow;
+import org.example.repository.ItineraryRepository;
+import org.example.repository.UserRepository;
+import org.example.service.search.DestinationSuggester;
+import org.example.service.search.ItineraryIndexMaintenance;
+import org.example.service.search.ItineraryIndexService;
+import org.example.service.search.SearchIndexManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ItineraryService#searchItineraries} over synthetic corpora held by a
+ * stubbed repository, comparing the Lucene index with the scan fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ItinerarySearchBenchmark {
+
+    private static final Long USER_ID = 1L;
+    private static final int TEXT_LENGTH = 400;
+
+    @Param({"10", "1000", "100000"})
+    private int corpusSize;
+
+    @Param({"index", "scan"})
+    private String mode;
+
+    @Param({"walking tour", "cathedral"})
+    private String searchTerm;
+
+    private Path indexDirectory;
+    private SearchIndexManager searchIndexManager;
+    private ItineraryIndexMaintenance indexMaintenance;
+    private ItineraryService itineraryService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        List<Itinerary> corpus = SyntheticItineraries.corpus(USER_ID, corpusSize, TEXT_LENGTH, 42);
+        Map<Long, Itinerary> byId = corpus.stream().collect(Collectors.toMap(Itinerary::getId, Function.identity()));
+
+        ItineraryRepository repository = mock(ItineraryRepository.class);
+        when(repository.count()).thenReturn((long) corpus.size());
+        when(repository.streamIndexRows()).thenAnswer(invocation -> corpus.stream().map(ItinerarySearchBenchmark::indexRow));
+        when(repository.findByUserIdOrderByCreatedAtDesc(anyLong())).thenReturn(corpus);
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<Itinerary> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                found.add(byId.get(id));
+            }
+            return found;
+        });
+
+        TextProcessingService textProcessingService = new TextProcessingService();
+        indexDirectory = Files.createTempDirectory("itinerary-benchmark");
+        searchIndexManager = new SearchIndexManager();
+        ReflectionTestUtils.setField(searchIndexManager, "maxStale", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(searchIndexManager, "minStale", Duration.ofMillis(25));
+        ReflectionTestUtils.setField(searchIndexManager, "freshnessTimeout", Duration.ofSeconds(1));
+        ItineraryIndexService indexService = new ItineraryIndexService(textProcessingService, searchIndexManager);
+        ReflectionTestUtils.setField(indexService, "enabled", "index".equals(mode));
+        ReflectionTestUtils.setField(indexService, "indexPath", indexDirectory.toString());
+        ReflectionTestUtils.setField(indexService, "maxResults", 100);
+        indexService.init();
+        loadIndex(indexService, repository);
+
+        ProcessedTextCache processedTextCache = new ProcessedTextCache(textProcessingService, new SimpleMeterRegistry(), 200_000_000L);
+        itineraryService = new ItineraryService(repository, mock(UserRepository.class), textProcessingService,
+                processedTextCache, indexService, mock(DestinationSuggester.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        indexMaintenance.shutdown();
+        searchIndexManager.closeAll();
+        FileSystemUtils.deleteRecursively(indexDirectory);
+    }
+
+    /**
+     * Indexes the corpus the way the application does on startup, through a
+     * full rebuild, and waits for it to finish.
+     */
+    private void loadIndex(ItineraryIndexService indexService, ItineraryRepository repository) throws InterruptedException {
+        indexMaintenance = new ItineraryIndexMaintenance(indexService, repository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(indexMaintenance, "batchSize", 500);
+        indexMaintenance.rebuildIfNeeded();
+        while (indexMaintenance.getRebuildStatus().getState() == IndexRebuildStatus.State.RUNNING) {
+            Thread.sleep(50);
+        }
+        if (indexMaintenance.getRebuildStatus().getState() == IndexRebuildStatus.State.FAILED) {
+            throw new IllegalStateException("Index rebuild failed: " + indexMaintenance.getRebuildStatus().getError());
+        }
+    }
+
+    private static ItineraryIndexRow indexRow(Itinerary itinerary) {
+        return new ItineraryIndexRow() {
+            @Override
+            public Long getId() {
+                return itinerary.getId();
+            }
+
+            @Override
+            public Long getUserId() {
+                return itinerary.getUser().getId();
+            }
+
+            @Override
+            public String getDestination() {
+                return itinerary.getDestination();
+            }
+
+            @Override
+            public String getFullItinerary() {
+                return itinerary.getFullItinerary();
+            }
+        };
+    }
+
+    @Benchmark
+    public List<ItineraryResponse> searchItineraries() {
+        return itineraryService.searchItineraries(USER_ID, searchTerm, false);
+    }
+}
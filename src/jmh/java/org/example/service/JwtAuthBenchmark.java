@@ -0,0 +1,76 @@
+package org.example.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.model.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning a bearer token into claims: the old path
+ * (parser rebuilt on every call, token parsed by the filter and again by the
+ * controller) against a prebuilt parser and the verified-claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private SecretKey secretKey;
+    private JwtParser sharedParser;
+    private JwtHelper jwtHelper;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = new byte[32];
+        new Random(42).nextBytes(keyBytes);
+        String secret = Base64.getEncoder().encodeToString(keyBytes);
+        secretKey = Keys.hmacShaKeyFor(keyBytes);
+        sharedParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+
+        jwtHelper = new JwtHelper();
+        ReflectionTestUtils.setField(jwtHelper, "secret", secret);
+        ReflectionTestUtils.setField(jwtHelper, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtHelper, "claimsCacheMaxSize", 10_000L);
+        jwtHelper.init();
+
+        User user = User.builder().id(7L).username("benchmark-user").role("USER").build();
+        token = jwtHelper.generateToken(user);
+    }
+
+    @Benchmark
+    public String rebuiltParserTwicePerRequest() {
+        Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody().getSubject();
+        return Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Claims sharedParserOncePerRequest() {
+        return sharedParser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims cachedVerifiedClaims() {
+        return jwtHelper.extractAllClaims(token);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service;
+
+import org.example.model.entity.Itinerary;
+import org.example.model.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fake itinerary text and corpora shared by the benchmarks.
+ */
+final class SyntheticItineraries {
+
+    static final String[] DESTINATIONS = {
+            "Barcelona", "Paris", "New York", "Tokyo", "Lisbon", "Rome", "Cape Town", "Kyoto",
+            "Reykjavik", "Buenos Aires", "Istanbul", "Marrakech", "Vancouver", "Hanoi", "Prague"
+    };
+
+    private static final String[] WORDS = {
+            "day", "morning", "afternoon", "evening", "visit", "walking", "tour", "museum", "museums",
+            "beach", "beaches", "market", "local", "dinner", "breakfast", "lunch", "explore", "old",
+            "town", "cathedral", "gardens", "hiking", "trail", "sunset", "views", "boat", "river",
+            "food", "tasting", "wine", "gallery", "castle", "park", "shopping", "street", "art",
+            "historic", "quarter", "train", "station", "hotel", "check-in", "relax", "spa", "night"
+    };
+
+    private SyntheticItineraries() {
+    }
+
+    static String text(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length + 16);
+        int day = 1;
+        while (builder.length() < length) {
+            if (random.nextInt(40) == 0) {
+                builder.append("Day ").append(day++).append(": ");
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+            builder.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    static List<Itinerary> corpus(Long userId, int size, int textLength, long seed) {
+        Random random = new Random(seed);
+        User user = User.builder().id(userId).username("user-" + userId).build();
+        LocalDateTime now = LocalDateTime.now();
+        List<Itinerary> itineraries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String destination = DESTINATIONS[random.nextInt(DESTINATIONS.length)];
+            itineraries.add(Itinerary.builder()
+                    .id((long) i + 1)
+                    .user(user)
+                    .destination(destination)
+                    .fullItinerary(destination + " trip. " + text(random, textLength))
+                    .numberOfDays(1 + random.nextInt(14))
+                    .budgetRange("medium")
+                    .travelStyle("relaxed")
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return itineraries;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis cost of {@link TextProcessingService} for search-term sized input
+ * up to a long generated itinerary. Run with {@code -Djmh.args="-prof gc"} to
+ * see allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextProcessingBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    private int length;
+
+    private TextProcessingService textProcessingService;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        textProcessingService = new TextProcessingService();
+        text = SyntheticItineraries.text(new Random(42), length);
+    }
+
+    @Benchmark
+    public List<String> analyzeText() throws IOException {
+        return textProcessingService.analyzeText(text);
+    }
+
+    @Benchmark
+    public String processText() {
+        return textProcessingService.processText(text);
+    }
+
+    @Benchmark
+    public void forEachTerm(Blackhole blackhole) throws IOException {
+        textProcessingService.forEachTerm(text, (buffer, length) -> blackhole.consume(length));
+    }
+}
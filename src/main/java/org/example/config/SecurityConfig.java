@@ -4,6 +4,7 @@ import org.example.security.JwtAuthFilter;
 import org.example.service.CustomUserDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -58,8 +59,16 @@ public class SecurityConfig {
 
                         // Public API endpoints
                         .requestMatchers("/api/auth/signup", "/api/auth/login").permitAll()
+                        // Stripe authenticates with the webhook signature instead of a JWT
+                        .requestMatchers(HttpMethod.POST, "/api/payments/webhook").permitAll()
                         // Swagger / API docs
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // Bulk mail goes to every user, so only admins may send it
+                        .requestMatchers("/api/mail/bulk/**", "/api/mail/bulk").hasRole("ADMIN")
+                        // Index maintenance scans whole tables
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // Rebuilding rating totals rescans every review
+                        .requestMatchers(HttpMethod.POST, "/api/review/stats/rebuild").hasRole("ADMIN")
                         // Catch-all SPA routes
                         .requestMatchers("/{path:[^\\.]*}").permitAll()
                         // All other requests require authentication
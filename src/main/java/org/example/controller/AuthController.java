@@ -5,9 +5,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.*;
 import org.example.model.entity.User;
+import org.example.security.AuthenticatedUser;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.logging.Level;
@@ -45,6 +47,17 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse<String>> logoutEverywhere(@AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            userService.revokeTokens(principal.getId());
+            return ResponseEntity.ok(ApiResponse.success("All sessions logged out"));
+        } catch (Exception e) {
+            logger.log(Level.INFO, "Error while revoking tokens" + e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<ApiResponse<User>> getProfile(@RequestBody UserProfileRequest userProfileRequest) {
         try {
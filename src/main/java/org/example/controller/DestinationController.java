@@ -0,0 +1,30 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.dto.ApiResponse;
+import org.example.dto.DestinationSuggestion;
+import org.example.service.search.DestinationSuggester;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/destinations")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class DestinationController {
+    private final DestinationSuggester destinationSuggester;
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<DestinationSuggestion>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            List<DestinationSuggestion> suggestions = destinationSuggester.suggest(prefix, limit);
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -2,19 +2,18 @@ package org.example.controller;
 
 
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.ApiResponse;
+import org.example.dto.CursorPage;
 import org.example.dto.ItineraryRequest;
 import org.example.dto.ItineraryResponse;
-import org.example.model.entity.User;
-import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
 import org.example.service.ItineraryService;
-import org.example.service.JwtHelper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -27,38 +26,27 @@ import java.util.List;
 public class ItineraryController {
 
     private final ItineraryService itineraryService;
-    private final UserRepository userRepository;
-    private final JwtHelper jwtHelper;
 
-    private String getAuthenticatedUsername(HttpServletRequest request) {
-//        return (String) request.getAttribute("authenticatedUsername");
-        String authHeader = request.getHeader("Authorization");
+    // view=summary omits fullItinerary; fetch it through GET /{itineraryId}
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            return jwtHelper.extractUserName(token);  // use your JWT utility class
-        }
-
-        return null;
+    private static boolean isOwner(AuthenticatedUser principal, Long userId) {
+        return principal != null && principal.getId().equals(userId);
     }
 
-    private boolean validateUserAccess(String tokenUsername, Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-        return tokenUsername.equals(user.getUsername());
+    private static boolean isSummaryView(String view) {
+        return VIEW_SUMMARY.equalsIgnoreCase(view);
     }
 
     @PostMapping
     public ResponseEntity<ApiResponse<ItineraryResponse>> saveItinerary(
-            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam Long userId,
             @Valid @RequestBody ItineraryRequest itineraryRequest) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
-            if (!validateUserAccess(tokenUsername, userId)) {
+            if (!isOwner(principal, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
@@ -73,17 +61,17 @@ public class ItineraryController {
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<ItineraryResponse>>> getUserItineraries(
-            HttpServletRequest request,
-            @RequestParam Long userId) {
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
-            if (!validateUserAccess(tokenUsername, userId)) {
+            if (!isOwner(principal, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
 
-            List<ItineraryResponse> itineraries = itineraryService.getUserItineraries(userId);
+            List<ItineraryResponse> itineraries = itineraryService.getUserItineraries(userId, isSummaryView(view));
             return ResponseEntity.ok(ApiResponse.success("User itineraries retrieved successfully", itineraries));
         } catch (RuntimeException e) {
 //            log.error("Error fetching user itineraries: {}", e.getMessage());
@@ -91,15 +79,35 @@ public class ItineraryController {
         }
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorPage<ItineraryResponse>>> getUserItinerariesPage(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
+
+        try {
+            if (!isOwner(principal, userId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(ApiResponse.error("Token username does not match user"));
+            }
+
+            CursorPage<ItineraryResponse> page = itineraryService.getUserItinerariesPage(userId, cursor, size, isSummaryView(view));
+            return ResponseEntity.ok(ApiResponse.success("User itineraries retrieved successfully", page));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/{itineraryId}")
     public ResponseEntity<ApiResponse<ItineraryResponse>> getItineraryById(
-            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam Long userId,
             @PathVariable Long itineraryId) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
-            if (!validateUserAccess(tokenUsername, userId)) {
+            if (!isOwner(principal, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
@@ -114,18 +122,18 @@ public class ItineraryController {
 
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<ItineraryResponse>>> searchItineraries(
-            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam Long userId,
-            @RequestParam String searchTerm) {
+            @RequestParam String searchTerm,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
-            if (!validateUserAccess(tokenUsername, userId)) {
+            if (!isOwner(principal, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
 
-            List<ItineraryResponse> itineraries = itineraryService.searchItineraries(userId, searchTerm);
+            List<ItineraryResponse> itineraries = itineraryService.searchItineraries(userId, searchTerm, isSummaryView(view));
             return ResponseEntity.ok(ApiResponse.success("Search completed successfully", itineraries));
         } catch (RuntimeException e) {
 //            log.error("Error searching itineraries: {}", e.getMessage());
@@ -135,13 +143,12 @@ public class ItineraryController {
 
     @DeleteMapping("/{itineraryId}")
     public ResponseEntity<ApiResponse<String>> deleteItinerary(
-            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam Long userId,
             @PathVariable Long itineraryId) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
-            if (!validateUserAccess(tokenUsername, userId)) {
+            if (!isOwner(principal, userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
@@ -8,12 +8,18 @@ package org.example.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.dto.ApiResponse;
+import org.example.dto.BulkEmailRequest;
 import org.example.dto.EmailRequest;
+import org.example.dto.EmailStatusResponse;
 import org.example.service.EmailService;
+import org.example.service.mail.BulkMailJob;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/mail")
 @CrossOrigin(origins = "*")
@@ -23,10 +29,44 @@ public class MailController {
     @PostMapping("/send")
     public ResponseEntity<ApiResponse<String>> sendEmail(@Valid @RequestBody EmailRequest emailRequest){
         try {
-            emailService.sendEmail(emailRequest);
-            return ResponseEntity.ok(ApiResponse.success("Email Sent successfully"));
+            String messageId = emailService.queueEmail(emailRequest);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Email queued for delivery", messageId));
+        }catch (RejectedExecutionException e){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(ApiResponse.error("Mail queue is full, try again later"));
+        }catch (RuntimeException e){
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }catch (Exception e){
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResponse.error("Unexpected error"));
         }
     }
+
+    @GetMapping("/status/{messageId}")
+    public ResponseEntity<ApiResponse<EmailStatusResponse>> getEmailStatus(@PathVariable String messageId){
+        return emailService.getEmailStatus(messageId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success("Email status", status)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Email not found")));
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<BulkMailJob>> sendBulkEmail(@Valid @RequestBody BulkEmailRequest request){
+        try {
+            BulkMailJob job = emailService.queueBulkEmail(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Bulk email job queued", job));
+        }catch (RejectedExecutionException e){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(ApiResponse.error("Too many bulk email jobs queued, try again later"));
+        }catch (RuntimeException e){
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<ApiResponse<BulkMailJob>> getBulkEmailJob(@PathVariable String jobId){
+        return emailService.getBulkJob(jobId)
+                .map(job -> ResponseEntity.ok(ApiResponse.success("Bulk email job status", job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Bulk email job not found")));
+    }
 }
@@ -1,22 +1,27 @@
 package org.example.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
+import com.stripe.exception.SignatureVerificationException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.ApiResponse;
+import org.example.dto.CursorPage;
 import org.example.dto.PaymentRequest;
 import org.example.dto.PaymentResponse;
-import org.example.model.entity.User;
-import org.example.repository.UserRepository;
-import org.example.service.JwtHelper;
+import org.example.security.AuthenticatedUser;
 import org.example.service.PaymentService;
+import org.example.service.PaymentWebhookService;
+import org.example.service.strategy.PaymentCapabilities;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/payments")
@@ -28,49 +33,34 @@ public class PaymentController {
    PaymentService paymentService;
 
     @Autowired
-    UserRepository userRepository;
-
-    private final JwtHelper jwtHelper;
+    PaymentWebhookService paymentWebhookService;
 
     @Value("${stripe.api.publishable-key}")
     private String stripePublicKey;
 
-    private String getAuthenticatedUsername(HttpServletRequest request) {
-//        return (String) request.getAttribute("authenticatedUsername");
-        String authHeader = request.getHeader("Authorization");
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            return jwtHelper.extractUserName(token);  // use your JWT utility class
-        }
-
-        return null;
-    }
-
-    private boolean validateUserAccess(String tokenUsername, Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
-        return tokenUsername.equals(user.getUsername());
-    }
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 200;
 
     @PostMapping("/process")
     public ResponseEntity<ApiResponse<PaymentResponse>> processPayment(
-            HttpServletRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody PaymentRequest paymentRequest) {
 
         try {
-            String tokenUsername = getAuthenticatedUsername(request);
+            if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+            }
+
             if (paymentRequest.getUserId() != null &&
-                    !validateUserAccess(tokenUsername, paymentRequest.getUserId())) {
+                    !paymentRequest.getUserId().equals(principal.getId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(ApiResponse.error("Token username does not match user"));
             }
 
-            log.info("Processing payment request for user: {}", tokenUsername);
+            log.info("Processing payment request for user: {}", principal.getUsername());
 
-            PaymentResponse response = paymentService.processPayment(paymentRequest);
+            PaymentResponse response = paymentService.processPayment(paymentRequest, principal.getId(), idempotencyKey);
 
             if (response.isSuccess()) {
                 return ResponseEntity.ok(ApiResponse.success("Payment processed successfully", response));
@@ -91,6 +81,70 @@ public class PaymentController {
 
 
 
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<CursorPage<PaymentResponse>>> getPaymentHistory(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPage<PaymentResponse> page = paymentService.getPaymentHistory(principal.getId(), cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("Payment history retrieved", page));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/itinerary/{itineraryId}")
+    public ResponseEntity<ApiResponse<List<PaymentResponse>>> getItineraryPayments(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable Long itineraryId) {
+        return ResponseEntity.ok(ApiResponse.success("Itinerary payments retrieved",
+                paymentService.getItineraryPayments(principal.getId(), itineraryId)));
+    }
+
+    @GetMapping("/{paymentId}")
+    public ResponseEntity<ApiResponse<PaymentResponse>> getPayment(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable String paymentId) {
+        return paymentService.getPayment(principal.getId(), paymentId)
+                .map(payment -> ResponseEntity.ok(ApiResponse.success("Payment retrieved", payment)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Payment not found")));
+    }
+
+    /**
+     * Stripe webhook endpoint. Answers as soon as the event is verified and
+     * queued; a non-2xx answer makes Stripe redeliver.
+     */
+    @PostMapping("/webhook")
+    public ResponseEntity<String> handleWebhook(
+            @RequestHeader(value = "Stripe-Signature", required = false) String signature,
+            @RequestBody String payload) {
+        if (!paymentWebhookService.isConfigured()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Webhook not configured");
+        }
+        if (signature == null) {
+            return ResponseEntity.badRequest().body("Missing signature");
+        }
+        try {
+            if (!paymentWebhookService.accept(payload, signature)) {
+                log.warn("Webhook queue full, asking Stripe to redeliver");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Busy");
+            }
+            return ResponseEntity.ok("OK");
+        } catch (SignatureVerificationException e) {
+            log.warn("Rejected webhook with invalid signature");
+            return ResponseEntity.badRequest().body("Invalid signature");
+        } catch (RuntimeException e) {
+            log.error("Malformed webhook payload: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid payload");
+        }
+    }
+
+    @GetMapping("/types")
+    public ResponseEntity<ApiResponse<Map<String, PaymentCapabilities>>> getPaymentTypes() {
+        return ResponseEntity.ok(ApiResponse.success("Payment types retrieved", paymentService.getPaymentTypes()));
+    }
+
     @GetMapping("/config")
     public ResponseEntity<ApiResponse<String>> getPaymentConfig() {
         // Return the public Stripe key for frontend configuration
@@ -3,8 +3,11 @@ package org.example.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.dto.ApiResponse;
+import org.example.dto.CursorPage;
+import org.example.dto.DestinationRatingResponse;
 import org.example.dto.ReviewRequest;
 import org.example.dto.ReviewResponse;
+import org.example.dto.ReviewSearchResponse;
 import org.example.service.ReviewService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -29,6 +32,52 @@ public class ReviewController {
         }
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorPage<ReviewResponse>>> getReviewsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPage<ReviewResponse> page = reviewService.getReviewsPage(cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("Reviews retrieved successfully", page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<ReviewSearchResponse>> searchReviews(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            ReviewSearchResponse results = reviewService.searchReviews(q, destination, limit,
+                    SecurityContextHolder.getContext().getAuthentication().getName());
+            return ResponseEntity.ok(ApiResponse.success("Search completed successfully", results));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<DestinationRatingResponse>> getDestinationStats(@RequestParam String destination) {
+        try {
+            DestinationRatingResponse stats = reviewService.getDestinationStats(destination);
+            return ResponseEntity.ok(ApiResponse.success("Rating stats retrieved successfully", stats));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildDestinationStats() {
+        try {
+            int destinations = reviewService.rebuildDestinationStats();
+            return ResponseEntity.ok(ApiResponse.success("Rating stats rebuilt", destinations));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<ReviewResponse>> submitResponse(
             @Valid @RequestBody ReviewRequest reviewRequest) {
@@ -0,0 +1,47 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.dto.ApiResponse;
+import org.example.dto.IndexCheckResponse;
+import org.example.dto.IndexRebuildStatus;
+import org.example.service.search.ItineraryIndexMaintenance;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/search")
+@RequiredArgsConstructor
+public class SearchAdminController {
+    private final ItineraryIndexMaintenance itineraryIndexMaintenance;
+
+    @PostMapping("/itineraries/rebuild")
+    public ResponseEntity<ApiResponse<IndexRebuildStatus>> rebuildItineraryIndex() {
+        try {
+            IndexRebuildStatus status = itineraryIndexMaintenance.startRebuild();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Index rebuild started", status));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/itineraries/rebuild")
+    public ResponseEntity<ApiResponse<IndexRebuildStatus>> getItineraryRebuildStatus() {
+        return ResponseEntity.ok(ApiResponse.success("Index rebuild status", itineraryIndexMaintenance.getRebuildStatus()));
+    }
+
+    @PostMapping("/itineraries/check")
+    public ResponseEntity<ApiResponse<IndexCheckResponse>> checkItineraryIndex(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        try {
+            IndexCheckResponse result = itineraryIndexMaintenance.check(repair);
+            return ResponseEntity.ok(ApiResponse.success("Index consistency check completed", result));
+        } catch (IllegalStateException e) {
+            // An available index can only be busy with a rebuild
+            HttpStatus status = itineraryIndexMaintenance.isAvailable() ? HttpStatus.CONFLICT : HttpStatus.SERVICE_UNAVAILABLE;
+            return ResponseEntity.status(status).body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.internalServerError().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkEmailRequest {
+    @NotBlank
+    private String subject;
+    @NotBlank
+    private String message;
+    /** Explicit recipient addresses; combined with {@link #segment} when both are given. */
+    private List<String> recipients;
+    /** Named recipient group, currently only {@code all-users}. */
+    private String segment;
+}
@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor; // Opaque token for the next page, null on the last page
+    private boolean hasMore;
+}
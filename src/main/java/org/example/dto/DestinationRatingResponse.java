@@ -0,0 +1,18 @@
+package org.example.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationRatingResponse {
+    private String destination;
+    private long reviewCount;
+    private double averageRating;
+    // Number of reviews per star rating, 1 to 5
+    private Map<Integer, Long> histogram;
+}
@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationSuggestion {
+    private String destination;
+    // Itineraries and reviews naming this destination
+    private long count;
+}
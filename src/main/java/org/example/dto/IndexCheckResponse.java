@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexCheckResponse {
+    private String index;
+    private long databaseDocuments;
+    private long indexDocuments;
+    private boolean consistent;
+    // Id buckets whose document count or checksum differ between database and index
+    private List<Integer> mismatchedBuckets;
+    private boolean repaired;
+}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexRebuildStatus {
+    public enum State { IDLE, RUNNING, COMPLETED, FAILED }
+
+    private String index;
+    private State state;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long documents;
+    // Documents written while the rebuild ran and indexed again afterwards
+    private int replayed;
+    private String error;
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 public class ItineraryResponse {
     private Long id;
     private String destination;
-    private String fullItinerary;
+    private String fullItinerary; // Null in the summary view
+    private String snippet;
     private String startDate;
     private String endDate;
     private Integer numberOfDays;
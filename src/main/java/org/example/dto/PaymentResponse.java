@@ -20,6 +20,7 @@ public class PaymentResponse {
     private String currency;
     private String paymentMethod;
     private String description;
+    private Long itineraryId;
     private LocalDateTime createdAt;
     private String clientSecret; // For Stripe frontend confirmation
     private String receiptUrl;
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewSearchResponse {
+    private List<ReviewResponse> results;
+    // All matches, not just the returned top results
+    private long totalHits;
+    // Matching reviews per normalized destination, most reviewed first
+    private Map<String, Integer> destinations;
+}
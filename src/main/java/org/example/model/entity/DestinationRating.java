@@ -0,0 +1,59 @@
+package org.example.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating totals for one destination, kept up to date as reviews are
+ * submitted so stats never need a scan of the reviews table. Rebuilt from
+ * the reviews by DestinationRatingService#rebuild.
+ */
+@Entity
+@Table(name = "destination_ratings")
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationRating {
+
+    // Trimmed, lower-cased destination with whitespace collapsed
+    @Id
+    @Column(name = "destination_key")
+    private String destinationKey;
+
+    // Destination as first written by a reviewer, for display
+    private String destination;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
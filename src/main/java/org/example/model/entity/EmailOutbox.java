@@ -0,0 +1,86 @@
+package org.example.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent, or the record of one that was. Rows are
+ * claimed by {@link org.example.service.mail.OutboxDispatcher}; while a row
+ * is SENDING, {@code nextAttemptAt} is the end of its lease so rows of a
+ * crashed instance are picked up again. Each claim bumps {@code version}, so
+ * an outcome saved by an earlier claim fails instead of overwriting it.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_message_id", columnList = "message_id", unique = true)
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false, length = 36)
+    private String messageId;
+
+    @Column(name = "recipient", nullable = false, length = 1000)
+    private String recipient;
+
+    @Column(length = 1000)
+    private String cc;
+
+    @Column(length = 1000)
+    private String bcc;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    // Primitive so saving a detached row is a merge, not an insert; the
+    // default fills the column for rows written before it existed
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = Status.PENDING;
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -7,13 +7,17 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "itineraries")
+@Table(name = "itineraries", indexes = {
+        @Index(name = "idx_itineraries_user_created_id", columnList = "user_id, created_at, id")
+})
 @Builder
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Itinerary {
+    public static final int SNIPPET_LENGTH = 200;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -28,6 +32,10 @@ public class Itinerary {
     @Column(columnDefinition = "TEXT")
     private String fullItinerary;
 
+    // Leading part of fullItinerary, kept so list views never read the TEXT column
+    @Column(name = "snippet", length = SNIPPET_LENGTH)
+    private String snippet;
+
     @Column(name = "start_date")
     private String startDate;
 
@@ -53,10 +61,20 @@ public class Itinerary {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        snippet = buildSnippet(fullItinerary);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        snippet = buildSnippet(fullItinerary);
+    }
+
+    private static String buildSnippet(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.strip();
+        return trimmed.length() <= SNIPPET_LENGTH ? trimmed : trimmed.substring(0, SNIPPET_LENGTH);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package org.example.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_user_created_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_payments_itinerary", columnList = "itinerary_id"),
+        @Index(name = "idx_payments_provider_payment_id", columnList = "provider_payment_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payments_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Payment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "itinerary_id")
+    private Long itineraryId;
+
+    // Only set once the provider has decided on the payment, see PaymentIdempotencyStore
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    // SHA-256 of the request fields, to detect a key reused for a different payment
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint;
+
+    // Id assigned by the payment provider, e.g. the Stripe PaymentIntent id
+    @Column(name = "provider_payment_id")
+    private String providerPaymentId;
+
+    @Column(length = 32)
+    private String status;
+
+    // Creation time (epoch seconds) of the last provider event applied to status
+    @Column(name = "last_event_created")
+    private Long lastEventCreated;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 10)
+    private String currency;
+
+    private String paymentMethod;
+
+    private String description;
+
+    private String clientSecret;
+
+    private boolean success;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_created_id", columnList = "created_at, id")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,7 +36,7 @@ public class Review {
     @Column
     private String destination;
 
-    @Column
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @Column
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 @Entity
 @Builder
@@ -94,6 +95,9 @@ public class User {
     }
 
     public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            revokeTokens();
+        }
         this.enabled = enabled;
     }
 
@@ -102,9 +106,20 @@ public class User {
     }
 
     public void setRole(String role) {
+        if (!Objects.equals(this.role, role)) {
+            revokeTokens();
+        }
         this.role = role;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion == null ? 0 : tokenVersion;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     private String username;
     private String email;
     private String password;
@@ -114,8 +129,20 @@ public class User {
     private LocalDate createdAt;
     private LocalDate updatedAt;
     @Column(name = "is_enabled")
-    private boolean enabled;
+    @Builder.Default
+    private boolean enabled = true;
     private String role;
+    // Embedded in issued JWTs; bumping it invalidates every token issued before
+    @Column(name = "token_version")
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
+    // Tokens carry the role and are only accepted for enabled users, so both changes revoke them
+    private void revokeTokens() {
+        if (id != null) {
+            tokenVersion = getTokenVersion() + 1;
+        }
+    }
 
     @PrePersist
     protected void onCreate(){
@@ -0,0 +1,9 @@
+package org.example.model.projection;
+
+/**
+ * How many rows name a destination, as written (not normalized).
+ */
+public interface DestinationCount {
+    String getDestination();
+    Long getTotal();
+}
@@ -0,0 +1,11 @@
+package org.example.model.projection;
+
+/**
+ * Number of reviews with a given rating for one destination, as written by
+ * the reviewer (not normalized).
+ */
+public interface DestinationRatingCount {
+    String getDestination();
+    Integer getRating();
+    Long getTotal();
+}
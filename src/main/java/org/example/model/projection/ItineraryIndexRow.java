@@ -0,0 +1,12 @@
+package org.example.model.projection;
+
+/**
+ * The itinerary columns that go into the search index, read without loading
+ * entities so a full rebuild does not fill the persistence context.
+ */
+public interface ItineraryIndexRow {
+    Long getId();
+    Long getUserId();
+    String getDestination();
+    String getFullItinerary();
+}
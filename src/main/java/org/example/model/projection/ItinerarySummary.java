@@ -0,0 +1,20 @@
+package org.example.model.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight view of an itinerary for list screens. Never selects the
+ * fullItinerary column.
+ */
+public interface ItinerarySummary {
+    Long getId();
+    String getDestination();
+    String getSnippet();
+    String getStartDate();
+    String getEndDate();
+    Integer getNumberOfDays();
+    String getBudgetRange();
+    String getTravelStyle();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,12 @@
+package org.example.model.projection;
+
+/**
+ * The review columns that go into the search index, read without loading
+ * entities so indexing every review does not fill the persistence context.
+ */
+public interface ReviewIndexRow {
+    Long getId();
+    String getTitle();
+    String getComment();
+    String getDestination();
+}
@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import org.example.model.entity.DestinationRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DestinationRatingRepository extends JpaRepository<DestinationRating, String> {
+
+    /**
+     * Adds one review to the totals in a single statement, so concurrent
+     * submissions for the same destination cannot lose updates. Returns 0
+     * when the destination has no row yet.
+     */
+    @Modifying
+    @Query("UPDATE DestinationRating d SET d.reviewCount = d.reviewCount + 1, " +
+            "d.ratingSum = d.ratingSum + :rating, " +
+            "d.stars1 = d.stars1 + :stars1, d.stars2 = d.stars2 + :stars2, d.stars3 = d.stars3 + :stars3, " +
+            "d.stars4 = d.stars4 + :stars4, d.stars5 = d.stars5 + :stars5, " +
+            "d.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE d.destinationKey = :destinationKey")
+    int increment(@Param("destinationKey") String destinationKey,
+                  @Param("rating") long rating,
+                  @Param("stars1") long stars1,
+                  @Param("stars2") long stars2,
+                  @Param("stars3") long stars3,
+                  @Param("stars4") long stars4,
+                  @Param("stars5") long stars5);
+}
@@ -0,0 +1,45 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.model.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    Optional<EmailOutbox> findByMessageId(String messageId);
+
+    long countByStatusIn(Collection<EmailOutbox.Status> statuses);
+
+    /**
+     * Locks up to a page of due rows. A lock timeout of -2 makes Hibernate
+     * emit {@code FOR UPDATE SKIP LOCKED} where the dialect supports it
+     * (Postgres), so concurrent dispatchers claim disjoint rows; H2 falls back
+     * to a plain {@code FOR UPDATE}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<EmailOutbox> findDueForUpdate(@Param("statuses") Collection<EmailOutbox.Status> statuses,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :status AND e.sentAt < :before")
+    int deleteByStatusAndSentAtBefore(@Param("status") EmailOutbox.Status status, @Param("before") LocalDateTime before);
+}
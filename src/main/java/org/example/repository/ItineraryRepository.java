@@ -1,20 +1,108 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.model.entity.Itinerary;
 import org.example.model.entity.User;
+import org.example.model.projection.DestinationCount;
+import org.example.model.projection.ItineraryIndexRow;
+import org.example.model.projection.ItinerarySummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItineraryRepository extends JpaRepository<Itinerary, Long> {
 
-    List<Itinerary> findByUserOrderByCreatedAtDesc(User user);
+    List<Itinerary> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<Itinerary> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Itinerary i WHERE i.id = :id AND i.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Rows written before the snippet column existed
+    @Query("SELECT i.id FROM Itinerary i WHERE i.snippet IS NULL AND i.fullItinerary IS NOT NULL ORDER BY i.id")
+    List<Long> findIdsWithoutSnippet(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Itinerary i SET i.snippet = SUBSTRING(TRIM(i.fullItinerary), 1, " + Itinerary.SNIPPET_LENGTH + ") " +
+            "WHERE i.id IN :ids")
+    int fillSnippets(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT i FROM Itinerary i WHERE i.user = :user AND (i.destination LIKE %:searchTerm% OR i.fullItinerary LIKE %:searchTerm%) ORDER BY i.createdAt DESC")
     List<Itinerary> findByUserAndSearchTerm(@Param("user") User user, @Param("searchTerm") String searchTerm);
 
-}
\ No newline at end of file
+    @Query("SELECT i FROM Itinerary i WHERE i.user.id = :userId ORDER BY i.createdAt DESC, i.id DESC")
+    List<Itinerary> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT i FROM Itinerary i WHERE i.user.id = :userId " +
+            "AND (i.createdAt < :createdAt OR (i.createdAt = :createdAt AND i.id < :id)) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<Itinerary> findPageByUserIdAfter(@Param("userId") Long userId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
+
+    String SUMMARY_COLUMNS = "i.id AS id, i.destination AS destination, i.snippet AS snippet, " +
+            "i.startDate AS startDate, i.endDate AS endDate, i.numberOfDays AS numberOfDays, " +
+            "i.budgetRange AS budgetRange, i.travelStyle AS travelStyle, " +
+            "i.createdAt AS createdAt, i.updatedAt AS updatedAt";
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Itinerary i WHERE i.user.id = :userId ORDER BY i.createdAt DESC, i.id DESC")
+    List<ItinerarySummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Itinerary i WHERE i.user.id = :userId ORDER BY i.createdAt DESC, i.id DESC")
+    List<ItinerarySummary> findFirstSummaryPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Itinerary i WHERE i.user.id = :userId " +
+            "AND (i.createdAt < :createdAt OR (i.createdAt = :createdAt AND i.id < :id)) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<ItinerarySummary> findSummaryPageByUserIdAfter(@Param("userId") Long userId,
+                                                        @Param("createdAt") LocalDateTime createdAt,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Itinerary i WHERE i.user.id = :userId AND i.id IN :ids")
+    List<ItinerarySummary> findSummariesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    String INDEX_COLUMNS = "i.id AS id, i.user.id AS userId, i.destination AS destination, i.fullItinerary AS fullItinerary";
+
+    /**
+     * Every itinerary's indexed columns as a cursor. Must be consumed inside
+     * a transaction and closed; rows are fetched from the database in chunks
+     * of the fetch size rather than all at once.
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT " + INDEX_COLUMNS + " FROM Itinerary i")
+    Stream<ItineraryIndexRow> streamIndexRows();
+
+    /**
+     * Like {@link #streamIndexRows()}, restricted to ids in the given
+     * {@code MOD(id, bucketCount)} buckets.
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT " + INDEX_COLUMNS + " FROM Itinerary i WHERE MOD(i.id, :bucketCount) IN :buckets")
+    Stream<ItineraryIndexRow> streamIndexRowsInBuckets(@Param("bucketCount") int bucketCount,
+                                                      @Param("buckets") Collection<Integer> buckets);
+
+    @Query("SELECT " + INDEX_COLUMNS + " FROM Itinerary i WHERE i.id IN :ids")
+    List<ItineraryIndexRow> findIndexRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT i.destination AS destination, COUNT(i) AS total FROM Itinerary i " +
+            "WHERE i.destination IS NOT NULL GROUP BY i.destination")
+    List<DestinationCount> countByDestination();
+}
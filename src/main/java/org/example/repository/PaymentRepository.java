@@ -0,0 +1,36 @@
+package org.example.repository;
+
+import org.example.model.entity.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    Optional<Payment> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    List<Payment> findByProviderPaymentIdIn(Collection<String> providerPaymentIds);
+
+    Optional<Payment> findByProviderPaymentIdAndUserId(String providerPaymentId, Long userId);
+
+    List<Payment> findByItineraryIdAndUserIdOrderByCreatedAtDesc(Long itineraryId, Long userId);
+
+    @Query("SELECT p FROM Payment p WHERE p.userId = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT p FROM Payment p WHERE p.userId = :userId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByUserIdAfter(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+}
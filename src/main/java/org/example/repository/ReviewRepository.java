@@ -1,13 +1,49 @@
 package org.example.repository;
 
 
+import jakarta.persistence.QueryHint;
 import org.example.model.entity.Review;
+import org.example.model.projection.DestinationCount;
+import org.example.model.projection.DestinationRatingCount;
+import org.example.model.projection.ReviewIndexRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
-    List<Review> findAllByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+
+    @Query("SELECT r FROM Review r ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findFirstPage(Pageable pageable);
+
+    @Query("SELECT r FROM Review r " +
+            "WHERE r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                               @Param("id") Long id,
+                               Pageable pageable);
+
+    @Query("SELECT r.destination AS destination, r.rating AS rating, COUNT(r) AS total FROM Review r " +
+            "WHERE r.destination IS NOT NULL AND r.rating IS NOT NULL " +
+            "GROUP BY r.destination, r.rating")
+    List<DestinationRatingCount> countByDestinationAndRating();
+
+    @Query("SELECT r.destination AS destination, COUNT(r) AS total FROM Review r " +
+            "WHERE r.destination IS NOT NULL GROUP BY r.destination")
+    List<DestinationCount> countByDestination();
+
+    /**
+     * Every review's indexed columns as a cursor. Must be consumed inside a
+     * transaction and closed; rows are fetched in chunks of the fetch size.
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("SELECT r.id AS id, r.title AS title, r.comment AS comment, r.destination AS destination FROM Review r")
+    Stream<ReviewIndexRow> streamIndexRows();
+}
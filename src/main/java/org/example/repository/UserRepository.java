@@ -2,7 +2,12 @@ package org.example.repository;
 
 import org.example.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -19,4 +24,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsernameOrEmail(String username, String email);
 
+    @Query("SELECT u.email FROM User u WHERE u.email IS NOT NULL ORDER BY u.id")
+    List<String> findAllEmails();
+
+    // Disabled users have no current version, so none of their tokens are accepted
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.id = :id AND u.enabled = true")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // Rows written before accounts were enabled on signup have neither flag nor version set
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.enabled = true, u.tokenVersion = 0 WHERE u.tokenVersion IS NULL")
+    int enableUnversionedUsers();
+
 }
@@ -1,13 +1,16 @@
 package org.example.security;
 
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.example.service.JwtHelper;
+import org.example.service.TokenVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
@@ -25,15 +29,30 @@ import java.util.List;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    // Verified claims of the current request, for code that needs more than the principal
+    public static final String CLAIMS_ATTRIBUTE = "jwtClaims";
+
 
     private final JwtHelper jwtHelper;
 
 
     private  final UserDetailsService userDetailsService;
 
-    public JwtAuthFilter(JwtHelper jwtHelper, UserDetailsService userDetailsService) {
+    private final TokenVersionService tokenVersionService;
+
+    // Tokens issued before version claims existed are accepted until then; never by default
+    private final Instant unversionedTokensUntil;
+
+    // When enabled, tokens carrying user id and version claims are trusted without loading the user
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
+
+    public JwtAuthFilter(JwtHelper jwtHelper, UserDetailsService userDetailsService, TokenVersionService tokenVersionService,
+                         @Value("${jwt.unversioned-tokens-until:}") String unversionedTokensUntil) {
         this.jwtHelper = jwtHelper;
         this.userDetailsService = userDetailsService;
+        this.tokenVersionService = tokenVersionService;
+        this.unversionedTokensUntil = unversionedTokensUntil.isBlank() ? Instant.EPOCH : Instant.parse(unversionedTokensUntil);
     }
 
     @Override
@@ -47,10 +66,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String username = jwtHelper.extractUserName(jwt);
+            final Claims claims = jwtHelper.extractAllClaims(jwt);
+            final String username = claims.getSubject();
+            request.setAttribute(CLAIMS_ATTRIBUTE, claims);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolveUser(claims);
+                if (userDetails == null) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.getWriter().write("Token has been revoked");
+                    return;
+                }
                 // No need to re-validate token, extractUserName already does.
                 // If token was invalid, an exception would have been thrown.
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -69,4 +95,41 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             response.getWriter().write("Invalid or expired token");
         }
     }
+
+    /**
+     * Builds the principal from the token claims when possible. Returns null
+     * when the token version is no longer current or the user is disabled;
+     * role and enabled changes bump the version, so a current token's role
+     * claim can be trusted.
+     */
+    private UserDetails resolveUser(Claims claims) {
+        Long userId = claims.get(JwtHelper.CLAIM_USER_ID, Long.class);
+        Integer tokenVersion = claims.get(JwtHelper.CLAIM_TOKEN_VERSION, Integer.class);
+        if (userId == null || tokenVersion == null) {
+            return resolveUnversioned(claims);
+        }
+        if (!tokenVersionService.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+        if (!stateless) {
+            return this.userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        return new AuthenticatedUser(userId, claims.getSubject(), null, claims.get(JwtHelper.CLAIM_ROLE, String.class));
+    }
+
+    /**
+     * Tokens issued before version claims existed go through the user lookup
+     * during the migration window. They were issued at version 0, so any
+     * logout-all, role or enabled change since revokes them.
+     */
+    private UserDetails resolveUnversioned(Claims claims) {
+        if (Instant.now().isAfter(unversionedTokensUntil)) {
+            return null;
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!(userDetails instanceof AuthenticatedUser user) || !tokenVersionService.isCurrent(user.getId(), 0)) {
+            return null;
+        }
+        return user;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.DestinationRatingResponse;
+import org.example.model.entity.DestinationRating;
+import org.example.model.projection.DestinationRatingCount;
+import org.example.repository.DestinationRatingRepository;
+import org.example.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-destination rating count, sum and star histogram. Totals are updated
+ * in the same transaction as the review they count, so a stats lookup is a
+ * primary-key read regardless of how many reviews exist.
+ */
+@Slf4j
+@Service
+public class DestinationRatingService {
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    private final DestinationRatingRepository destinationRatingRepository;
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+
+    // Review transactions hold the read lock until they commit; a rebuild
+    // takes the write lock so no increment lands between its count and swap.
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @Value("${reviews.ratings.rebuild-lock-timeout:PT30S}")
+    private Duration rebuildLockTimeout;
+
+    public DestinationRatingService(DestinationRatingRepository destinationRatingRepository,
+                                    ReviewRepository reviewRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.destinationRatingRepository = destinationRatingRepository;
+        this.reviewRepository = reviewRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static boolean isValidRating(Integer rating) {
+        return rating != null && rating >= MIN_RATING && rating <= MAX_RATING;
+    }
+
+    /**
+     * Trims, lower-cases and collapses whitespace so "Paris", " paris " and
+     * "PARIS" share one set of totals. Returns null for blank destinations.
+     */
+    public static String normalize(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        String key = destination.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * Adds one review to its destination's totals. Must be called inside the
+     * transaction that saves the review, so both commit or neither does, and
+     * that transaction must run through {@link #whileRecording}.
+     */
+    public void record(String destination, Integer rating) {
+        String key = normalize(destination);
+        if (key == null || !isValidRating(rating)) {
+            return;
+        }
+        if (increment(key, rating) == 0) {
+            createIfAbsent(key, destination.trim());
+            increment(key, rating);
+        }
+    }
+
+    /**
+     * Runs the transaction that saves a review and calls {@link #record}, so
+     * a rebuild waits for it to commit.
+     */
+    public <T> T whileRecording(Supplier<T> transaction) {
+        rebuildLock.readLock().lock();
+        try {
+            return transaction.get();
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the destination's totals; a destination nobody has reviewed
+     * gets zero counts.
+     */
+    public DestinationRatingResponse getStats(String destination) {
+        String key = normalize(destination);
+        if (key == null) {
+            throw new RuntimeException("Destination is required");
+        }
+        DestinationRating rating = destinationRatingRepository.findById(key)
+                .orElseGet(() -> DestinationRating.builder().destinationKey(key).destination(destination.trim()).build());
+        return toResponse(rating);
+    }
+
+    /**
+     * Recomputes every destination's totals from the reviews table, for
+     * backfilling or repairing drift. Waits for in-flight reviews to commit
+     * and holds new ones back until the totals are replaced, so none is lost
+     * or counted twice.
+     */
+    public int rebuild() {
+        Integer destinations = transactionTemplate.execute(status -> {
+            // Locked inside the transaction: its connection is already held, so
+            // reviews queued behind the lock cannot starve the rebuild of one
+            lockOutRecording();
+            Map<String, DestinationRating> totals = new HashMap<>();
+            for (DestinationRatingCount count : reviewRepository.countByDestinationAndRating()) {
+                String key = normalize(count.getDestination());
+                if (key == null || !isValidRating(count.getRating())) {
+                    continue;
+                }
+                DestinationRating rating = totals.computeIfAbsent(key, k -> DestinationRating.builder()
+                        .destinationKey(k)
+                        .destination(count.getDestination().trim())
+                        .build());
+                add(rating, count.getRating(), count.getTotal());
+            }
+            destinationRatingRepository.deleteAllInBatch();
+            destinationRatingRepository.saveAll(totals.values());
+            return totals.size();
+        });
+        log.info("Rebuilt rating totals for {} destinations", destinations);
+        return destinations == null ? 0 : destinations;
+    }
+
+    /**
+     * Takes the write lock for the rest of the current transaction, releasing
+     * it only once the new totals have committed.
+     */
+    private void lockOutRecording() {
+        try {
+            if (!rebuildLock.writeLock().tryLock(rebuildLockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Timed out waiting for in-flight reviews, try the rebuild again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to rebuild rating stats", e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                rebuildLock.writeLock().unlock();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (destinationRatingRepository.count() == 0 && reviewRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private int increment(String key, int rating) {
+        return destinationRatingRepository.increment(key, rating,
+                rating == 1 ? 1 : 0,
+                rating == 2 ? 1 : 0,
+                rating == 3 ? 1 : 0,
+                rating == 4 ? 1 : 0,
+                rating == 5 ? 1 : 0);
+    }
+
+    /**
+     * Inserts an empty row in its own transaction so a concurrent insert for
+     * the same destination cannot abort the caller's transaction.
+     */
+    private void createIfAbsent(String key, String destination) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                if (!destinationRatingRepository.existsById(key)) {
+                    destinationRatingRepository.saveAndFlush(DestinationRating.builder()
+                            .destinationKey(key)
+                            .destination(destination)
+                            .build());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Someone else created it first, which is all we needed
+        }
+    }
+
+    private static void add(DestinationRating rating, int stars, long count) {
+        rating.setReviewCount(rating.getReviewCount() + count);
+        rating.setRatingSum(rating.getRatingSum() + stars * count);
+        switch (stars) {
+            case 1 -> rating.setStars1(rating.getStars1() + count);
+            case 2 -> rating.setStars2(rating.getStars2() + count);
+            case 3 -> rating.setStars3(rating.getStars3() + count);
+            case 4 -> rating.setStars4(rating.getStars4() + count);
+            default -> rating.setStars5(rating.getStars5() + count);
+        }
+    }
+
+    private static DestinationRatingResponse toResponse(DestinationRating rating) {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, rating.getStars1());
+        histogram.put(2, rating.getStars2());
+        histogram.put(3, rating.getStars3());
+        histogram.put(4, rating.getStars4());
+        histogram.put(5, rating.getStars5());
+        double average = rating.getReviewCount() == 0 ? 0 : (double) rating.getRatingSum() / rating.getReviewCount();
+        return DestinationRatingResponse.builder()
+                .destination(rating.getDestination())
+                .reviewCount(rating.getReviewCount())
+                .averageRating(Math.round(average * 100) / 100.0)
+                .histogram(histogram)
+                .build();
+    }
+}
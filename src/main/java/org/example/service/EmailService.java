@@ -1,40 +1,115 @@
-
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.BulkEmailRequest;
 import org.example.dto.EmailRequest;
+import org.example.dto.EmailStatusResponse;
+import org.example.model.entity.EmailOutbox;
+import org.example.repository.EmailOutboxRepository;
+import org.example.repository.UserRepository;
+import org.example.service.mail.BulkMailJob;
+import org.example.service.mail.BulkMailSender;
+import org.example.service.mail.MailMessageFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    public static final String SEGMENT_ALL_USERS = "all-users";
+
+    private static final List<EmailOutbox.Status> UNDELIVERED = List.of(EmailOutbox.Status.PENDING, EmailOutbox.Status.SENDING);
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final MailMessageFactory messageFactory;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final BulkMailSender bulkMailSender;
+    private final UserRepository userRepository;
 
-    public void sendEmail(EmailRequest emailRequest) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(emailRequest.getTo());
-            message.setSubject(emailRequest.getSubject());
-            message.setText(emailRequest.getMessage());
-            message.setFrom(fromEmail);
+    // Beyond this many undelivered emails new ones are refused, so an SMTP outage cannot grow the table without bound
+    @Value("${mail.outbox.max-backlog:10000}")
+    private long maxBacklog;
+
+    /**
+     * Validates the email and stores it in the outbox, returning its message
+     * id. Delivery, including retries, is done by
+     * {@link org.example.service.mail.OutboxDispatcher}. Throws
+     * {@link RejectedExecutionException} when the outbox backlog is full.
+     */
+    public String queueEmail(EmailRequest emailRequest) {
+        if (emailOutboxRepository.countByStatusIn(UNDELIVERED) >= maxBacklog) {
+            throw new RejectedExecutionException("Mail outbox backlog is full");
+        }
 
-            if (emailRequest.getCc() != null && !emailRequest.getCc().trim().isEmpty()) {
-                message.setCc(emailRequest.getCc());
+        // Reject unparseable addresses now rather than on every delivery attempt
+        messageFactory.create(emailRequest.getTo(), emailRequest.getSubject(), emailRequest.getMessage(),
+                emailRequest.getCc(), emailRequest.getBcc());
+
+        EmailOutbox email = EmailOutbox.builder()
+                .messageId(UUID.randomUUID().toString())
+                .recipient(emailRequest.getTo())
+                .cc(emailRequest.getCc())
+                .bcc(emailRequest.getBcc())
+                .subject(emailRequest.getSubject())
+                .body(emailRequest.getMessage())
+                .build();
+        return emailOutboxRepository.save(email).getMessageId();
+    }
+
+    public Optional<EmailStatusResponse> getEmailStatus(String messageId) {
+        return emailOutboxRepository.findByMessageId(messageId).map(email -> EmailStatusResponse.builder()
+                .messageId(email.getMessageId())
+                .status(email.getStatus().name())
+                .attempts(email.getAttempts())
+                .lastError(email.getLastError())
+                .createdAt(email.getCreatedAt())
+                .nextAttemptAt(email.getStatus() == EmailOutbox.Status.PENDING ? email.getNextAttemptAt() : null)
+                .sentAt(email.getSentAt())
+                .build());
+    }
+
+    /**
+     * Starts sending the same message to every recipient of the request, one
+     * message per recipient. Duplicate addresses are sent to once. Throws
+     * {@link java.util.concurrent.RejectedExecutionException} when too many
+     * bulk jobs are already queued.
+     */
+    public BulkMailJob queueBulkEmail(BulkEmailRequest request) {
+        List<String> recipients = resolveRecipients(request);
+        if (recipients.isEmpty()) {
+            throw new RuntimeException("No recipients to send to");
+        }
+        return bulkMailSender.submit(recipients, recipient ->
+                messageFactory.create(recipient, request.getSubject(), request.getMessage(), null, null));
+    }
+
+    public Optional<BulkMailJob> getBulkJob(String jobId) {
+        return bulkMailSender.getJob(jobId);
+    }
+
+    private List<String> resolveRecipients(BulkEmailRequest request) {
+        Set<String> recipients = new LinkedHashSet<>();
+        if (request.getRecipients() != null) {
+            for (String recipient : request.getRecipients()) {
+                if (recipient != null && !recipient.isBlank()) {
+                    recipients.add(recipient.trim());
+                }
             }
-            if (emailRequest.getBcc() != null && !emailRequest.getBcc().trim().isEmpty()) {
-                message.setBcc(emailRequest.getBcc());
+        }
+        String segment = request.getSegment();
+        if (segment != null && !segment.isBlank()) {
+            if (!SEGMENT_ALL_USERS.equals(segment)) {
+                throw new RuntimeException("Unknown segment: " + segment);
             }
-
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send email: " + e.getMessage(), e);
+            recipients.addAll(userRepository.findAllEmails());
         }
+        return List.copyOf(recipients);
     }
 }
@@ -4,15 +4,26 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CursorPage;
 import org.example.dto.ItineraryRequest;
 import org.example.dto.ItineraryResponse;
 import org.example.model.entity.Itinerary;
 import org.example.model.entity.User;
+import org.example.model.projection.ItinerarySummary;
 import org.example.repository.ItineraryRepository;
 import org.example.repository.UserRepository;
+import org.example.service.search.DestinationSuggester;
+import org.example.service.search.ItineraryIndexService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,13 +31,46 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItineraryService {
 
+    private static final int SNIPPET_BACKFILL_BATCH = 500;
+
     private final ItineraryRepository itineraryRepository;
     private final UserRepository userRepository;
     private final TextProcessingService textProcessingService;
+    private final ProcessedTextCache processedTextCache;
+    private final ItineraryIndexService itineraryIndexService;
+    private final DestinationSuggester destinationSuggester;
+
+    @Value("${itineraries.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${itineraries.page.max-size:50}")
+    private int maxPageSize;
+
+    /**
+     * Fills the snippet of itineraries saved before the column existed, in
+     * batches so no single update holds many row locks. A no-op once every
+     * row has one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSnippets() {
+        int filled = 0;
+        List<Long> ids = itineraryRepository.findIdsWithoutSnippet(PageRequest.of(0, SNIPPET_BACKFILL_BATCH));
+        while (!ids.isEmpty()) {
+            int updated = itineraryRepository.fillSnippets(ids);
+            if (updated == 0) {
+                break;
+            }
+            filled += updated;
+            ids = itineraryRepository.findIdsWithoutSnippet(PageRequest.of(0, SNIPPET_BACKFILL_BATCH));
+        }
+        if (filled > 0) {
+            log.info("Filled snippets for {} existing itineraries", filled);
+        }
+    }
 
     public ItineraryResponse saveItinerary(Long userId, ItineraryRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // The caller is already authenticated, so a reference is enough to set the foreign key
+        User user = userRepository.getReferenceById(userId);
 
         Itinerary itinerary = Itinerary.builder()
                 .user(user)
@@ -40,34 +84,65 @@ public class ItineraryService {
                 .build();
 
         Itinerary savedItinerary = itineraryRepository.save(itinerary);
+        itineraryIndexService.index(savedItinerary);
+        destinationSuggester.record(savedItinerary.getDestination());
         return mapToResponse(savedItinerary);
     }
 
-    public List<ItineraryResponse> getUserItineraries(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public List<ItineraryResponse> getUserItineraries(Long userId, boolean summary) {
+        if (summary) {
+            return itineraryRepository.findSummariesByUserId(userId).stream()
+                    .map(this::mapToResponse)
+                    .collect(Collectors.toList());
+        }
 
-        List<Itinerary> itineraries = itineraryRepository.findByUserOrderByCreatedAtDesc(user);
+        List<Itinerary> itineraries = itineraryRepository.findByUserIdOrderByCreatedAtDesc(userId);
         return itineraries.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
-    public ItineraryResponse getItineraryById(Long userId, Long itineraryId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Itinerary itinerary = itineraryRepository.findById(itineraryId)
-                .orElseThrow(() -> new RuntimeException("Itinerary not found"));
+    public CursorPage<ItineraryResponse> getUserItinerariesPage(Long userId, String cursor, Integer size, boolean summary) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        PageCursor position = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        List<ItineraryResponse> itineraries;
+        if (summary) {
+            itineraries = (position == null
+                    ? itineraryRepository.findFirstSummaryPageByUserId(userId, limit)
+                    : itineraryRepository.findSummaryPageByUserIdAfter(userId, position.createdAt(), position.id(), limit))
+                    .stream().map(this::mapToResponse).collect(Collectors.toList());
+        } else {
+            itineraries = (position == null
+                    ? itineraryRepository.findFirstPageByUserId(userId, limit)
+                    : itineraryRepository.findPageByUserIdAfter(userId, position.createdAt(), position.id(), limit))
+                    .stream().map(this::mapToResponse).collect(Collectors.toList());
+        }
 
-        if (!itinerary.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Access denied");
+        boolean hasMore = itineraries.size() > pageSize;
+        List<ItineraryResponse> page = hasMore ? itineraries.subList(0, pageSize) : itineraries;
+        String nextCursor = null;
+        if (hasMore) {
+            ItineraryResponse last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
         }
 
+        return CursorPage.<ItineraryResponse>builder()
+                .items(page)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    public ItineraryResponse getItineraryById(Long userId, Long itineraryId) {
+        Itinerary itinerary = itineraryRepository.findByIdAndUserId(itineraryId, userId)
+                .orElseThrow(() -> new RuntimeException("Itinerary not found"));
+
         return mapToResponse(itinerary);
     }
 
-    public List<ItineraryResponse> searchItineraries(Long userId, String searchTerm) {
+    public List<ItineraryResponse> searchItineraries(Long userId, String searchTerm, boolean summary) {
 //        User user = userRepository.findById(userId)
 //                .orElseThrow(() -> new RuntimeException("User not found"));
 //
@@ -75,38 +150,47 @@ public class ItineraryService {
 //        return itineraries.stream()
 //                .map(this::mapToResponse)
 //                .collect(Collectors.toList());
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (itineraryIndexService.isAvailable()) {
+            List<Long> rankedIds = itineraryIndexService.search(userId, searchTerm);
+            Map<Long, Integer> rank = new HashMap<>();
+            for (int i = 0; i < rankedIds.size(); i++) {
+                rank.put(rankedIds.get(i), i);
+            }
+            List<ItineraryResponse> matches = summary
+                    ? itineraryRepository.findSummariesByUserIdAndIdIn(userId, rankedIds).stream()
+                            .map(this::mapToResponse)
+                            .collect(Collectors.toList())
+                    : itineraryRepository.findAllById(rankedIds).stream()
+                            .filter(itinerary -> itinerary.getUser().getId().equals(userId))
+                            .map(this::mapToResponse)
+                            .collect(Collectors.toList());
+            matches.sort(Comparator.comparing(itinerary -> rank.get(itinerary.getId())));
+            return matches;
+        }
 
         String processedSearchTerm = textProcessingService.processText(searchTerm);
-        List<Itinerary> itineraries=itineraryRepository.findByUserOrderByCreatedAtDesc(user);
+        List<Itinerary> itineraries=itineraryRepository.findByUserIdOrderByCreatedAtDesc(userId);
         return itineraries.stream().filter(itinerary -> {
-            String processedDestination = textProcessingService.processText(itinerary.getDestination());
-            String processedItinerary = textProcessingService.processText(itinerary.getFullItinerary());
-            return processedDestination.contains(processedSearchTerm) ||
-                    processedItinerary.contains(processedSearchTerm);
-        }).map(this::mapToResponse).collect(Collectors.toList());
+            ProcessedTextCache.ProcessedItinerary processed = processedTextCache.get(itinerary);
+            return processed.destination().contains(processedSearchTerm) ||
+                    processed.fullItinerary().contains(processedSearchTerm);
+        }).map(itinerary -> summary ? toSummary(mapToResponse(itinerary)) : mapToResponse(itinerary))
+                .collect(Collectors.toList());
     }
 
     public void deleteItinerary(Long userId, Long itineraryId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Itinerary itinerary = itineraryRepository.findById(itineraryId)
-                .orElseThrow(() -> new RuntimeException("Itinerary not found"));
-
-        if (!itinerary.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Access denied");
+        if (itineraryRepository.deleteByIdAndUserId(itineraryId, userId) == 0) {
+            throw new RuntimeException("Itinerary not found");
         }
-
-        itineraryRepository.delete(itinerary);
+        itineraryIndexService.delete(userId, itineraryId);
     }
 
-    private ItineraryResponse mapToResponse(Itinerary itinerary) {
+    ItineraryResponse mapToResponse(Itinerary itinerary) {
         return ItineraryResponse.builder()
                 .id(itinerary.getId())
                 .destination(itinerary.getDestination())
                 .fullItinerary(itinerary.getFullItinerary())
+                .snippet(itinerary.getSnippet())
                 .startDate(itinerary.getStartDate())
                 .endDate(itinerary.getEndDate())
                 .numberOfDays(itinerary.getNumberOfDays())
@@ -116,4 +200,24 @@ public class ItineraryService {
                 .updatedAt(itinerary.getUpdatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    private ItineraryResponse mapToResponse(ItinerarySummary summary) {
+        return ItineraryResponse.builder()
+                .id(summary.getId())
+                .destination(summary.getDestination())
+                .snippet(summary.getSnippet())
+                .startDate(summary.getStartDate())
+                .endDate(summary.getEndDate())
+                .numberOfDays(summary.getNumberOfDays())
+                .budgetRange(summary.getBudgetRange())
+                .travelStyle(summary.getTravelStyle())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
+    }
+
+    private ItineraryResponse toSummary(ItineraryResponse response) {
+        response.setFullItinerary(null);
+        return response;
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.PaymentRequest;
+import org.example.model.entity.Payment;
+import org.example.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Makes payment requests that carry an Idempotency-Key safe to retry. A
+ * completed payment is found again through its key in the payments table,
+ * with a bounded cache in front of it, and is replayed for repeat keys;
+ * concurrent requests with the same key wait for the one outbound call
+ * already in flight.
+ *
+ * <p>Cached payments are evicted when a webhook changes their status (see
+ * {@link PaymentWebhookService}), so a replay returns the current status.
+ *
+ * <p>Only payments the provider actually decided on are stored under their
+ * key (see {@link PaymentService}). Other failures are not, so the client
+ * can retry them; the provider sees the same key again and will not charge
+ * twice.
+ */
+@Slf4j
+@Component
+public class PaymentIdempotencyStore {
+
+    private final PaymentRepository paymentRepository;
+    private final Cache<String, Payment> completed;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public PaymentIdempotencyStore(PaymentRepository paymentRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${payments.idempotency.cache-size:10000}") long cacheSize,
+                                   @Value("${payments.idempotency.cache-ttl:PT24H}") Duration cacheTtl) {
+        this.paymentRepository = paymentRepository;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "payments.idempotency");
+    }
+
+    /**
+     * Returns the payment stored for {@code key} or runs {@code payment} once,
+     * passing it the request fingerprint to store with the key. Throws a
+     * RuntimeException if the key was already used for a different request.
+     */
+    public Payment execute(Long userId, String key, PaymentRequest request, Function<String, Payment> payment) {
+        String scope = scope(userId, key);
+        String fingerprint = fingerprint(request);
+
+        Payment stored = findCompleted(scope, userId, key);
+        if (stored != null) {
+            return replay(stored, fingerprint);
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(scope, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint(), fingerprint);
+            log.info("Waiting for in-flight payment with idempotency key {}", key);
+            try {
+                return running.result().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            // A request with this key may have completed between the lookup and putIfAbsent
+            stored = findCompleted(scope, userId, key);
+            // Not cached here: a webhook may already have changed the stored row,
+            // so the first replay loads it from the database instead
+            Payment result = stored != null ? replay(stored, fingerprint) : payment.apply(fingerprint);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scope, mine);
+        }
+    }
+
+    /**
+     * Drops the cached payment for the key, after its row was updated. An
+     * eviction during a load waits for the load, so the row read before the
+     * update is not left behind in the cache.
+     */
+    public void evict(Long userId, String key) {
+        completed.invalidate(scope(userId, key));
+    }
+
+    private Payment findCompleted(String scope, Long userId, String key) {
+        // Loads atomically per key, so a concurrent evict cannot be overtaken by a stale read
+        return completed.get(scope, ignored -> paymentRepository.findByUserIdAndIdempotencyKey(userId, key).orElse(null));
+    }
+
+    private static Payment replay(Payment payment, String fingerprint) {
+        checkFingerprint(payment.getRequestFingerprint(), fingerprint);
+        return payment;
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new RuntimeException("Idempotency-Key was already used for a different payment request");
+        }
+    }
+
+    private static String scope(Long userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private static String fingerprint(PaymentRequest request) {
+        BigDecimal amount = request.getAmount();
+        String canonical = String.join("\u0000",
+                amount == null ? "" : amount.stripTrailingZeros().toPlainString(),
+                Objects.toString(request.getCurrency(), "").toLowerCase(),
+                Objects.toString(request.getPaymentMethodId(), ""),
+                Objects.toString(request.getPaymentType(), ""),
+                Objects.toString(request.getDescription(), ""),
+                Objects.toString(request.getItineraryId(), ""));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Payment> result) {
+    }
+}
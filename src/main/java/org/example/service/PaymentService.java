@@ -6,42 +6,146 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CursorPage;
 import org.example.dto.PaymentRequest;
 import org.example.dto.PaymentResponse;
+import org.example.model.entity.Payment;
+import org.example.repository.PaymentRepository;
 import org.example.service.strategy.IPaymentStrategy;
-import org.example.service.strategy.PaymentFactory;
+import org.example.service.strategy.PaymentCapabilities;
+import org.example.service.strategy.PaymentStrategyRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentService {
 
+    private final PaymentRepository paymentRepository;
+    private final PaymentIdempotencyStore idempotencyStore;
+    private final PaymentStrategyRegistry paymentStrategyRegistry;
+
+    @Value("${payments.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${payments.page.max-size:100}")
+    private int maxPageSize;
+
     public PaymentResponse processPayment(PaymentRequest paymentRequest) {
-        try {
-            if (paymentRequest == null) {
-                log.error("Payment request is null");
-                return PaymentResponse.failed("Payment request cannot be null");
-            }
+        return processPayment(paymentRequest, paymentRequest == null ? null : paymentRequest.getUserId(), null);
+    }
 
-            if (paymentRequest.getAmount() == null || paymentRequest.getAmount().compareTo(java.math.BigDecimal.ZERO) <= 0) {
-                log.error("Invalid payment amount: {}", paymentRequest.getAmount());
-                return PaymentResponse.failed("Payment amount must be greater than zero");
-            }
+    /**
+     * Processes the payment and records the outcome in the payments table.
+     * When {@code idempotencyKey} is given, a repeated request from the same
+     * user gets the stored response instead of a new charge.
+     */
+    public PaymentResponse processPayment(PaymentRequest paymentRequest, Long userId, String idempotencyKey) {
+        if (idempotencyKey == null || paymentRequest == null) {
+            return toChargeResponse(charge(paymentRequest, userId, null, null));
+        }
+        return toChargeResponse(idempotencyStore.execute(userId, idempotencyKey, paymentRequest,
+                fingerprint -> charge(paymentRequest, userId, idempotencyKey, fingerprint)));
+    }
 
-            IPaymentStrategy paymentStrategy = PaymentFactory.getInstance(paymentRequest.getPaymentType());
+    public Map<String, PaymentCapabilities> getPaymentTypes() {
+        return paymentStrategyRegistry.capabilities();
+    }
 
-            if (paymentStrategy == null) {
-                log.error("Unsupported payment type: {}", paymentRequest.getPaymentType());
-                return PaymentResponse.failed("Unsupported payment type: " + paymentRequest.getPaymentType());
-            }
+    public CursorPage<PaymentResponse> getPaymentHistory(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        PageCursor position = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+
+        List<Payment> payments = position == null
+                ? paymentRepository.findFirstPageByUserId(userId, limit)
+                : paymentRepository.findPageByUserIdAfter(userId, position.createdAt(), position.id(), limit);
+
+        boolean hasMore = payments.size() > pageSize;
+        List<Payment> page = hasMore ? payments.subList(0, pageSize) : payments;
+        String nextCursor = null;
+        if (hasMore) {
+            Payment last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return CursorPage.<PaymentResponse>builder()
+                .items(page.stream().map(PaymentService::toResponse).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
 
+    public Optional<PaymentResponse> getPayment(Long userId, String paymentId) {
+        return paymentRepository.findByProviderPaymentIdAndUserId(paymentId, userId).map(PaymentService::toResponse);
+    }
+
+    public List<PaymentResponse> getItineraryPayments(Long userId, Long itineraryId) {
+        return paymentRepository.findByItineraryIdAndUserIdOrderByCreatedAtDesc(itineraryId, userId).stream()
+                .map(PaymentService::toResponse)
+                .toList();
+    }
+
+    /**
+     * Runs the payment through its strategy and saves the outcome. The
+     * idempotency key is only stored once the provider has assigned a
+     * payment id, so other failures stay retryable under the same key.
+     * Requests rejected before reaching a strategy are returned unsaved.
+     */
+    private Payment charge(PaymentRequest paymentRequest, Long userId, String idempotencyKey, String fingerprint) {
+        if (paymentRequest == null) {
+            log.error("Payment request is null");
+            return toEntity(null, userId, PaymentResponse.failed("Payment request cannot be null"));
+        }
+
+        if (paymentRequest.getAmount() == null || paymentRequest.getAmount().compareTo(java.math.BigDecimal.ZERO) <= 0) {
+            log.error("Invalid payment amount: {}", paymentRequest.getAmount());
+            return toEntity(paymentRequest, userId, PaymentResponse.failed("Payment amount must be greater than zero"));
+        }
+
+        IPaymentStrategy paymentStrategy = paymentStrategyRegistry.get(paymentRequest.getPaymentType());
+
+        if (paymentStrategy == null) {
+            log.error("Unsupported payment type: {}", paymentRequest.getPaymentType());
+            return toEntity(paymentRequest, userId, PaymentResponse.failed("Unsupported payment type: " + paymentRequest.getPaymentType()));
+        }
+
+        if (!paymentStrategy.getCapabilities().supportsCurrency(paymentRequest.getCurrency())) {
+            log.error("Currency {} not supported for payment type {}", paymentRequest.getCurrency(), paymentRequest.getPaymentType());
+            return toEntity(paymentRequest, userId, PaymentResponse.failed(
+                    "Currency " + paymentRequest.getCurrency() + " is not supported for payment type " + paymentRequest.getPaymentType()));
+        }
+
+        // Scoped to the user so two clients choosing the same key never share a charge
+        String providerKey = idempotencyKey == null ? null : userId + ":" + idempotencyKey;
+        Payment payment = toEntity(paymentRequest, userId, process(paymentStrategy, paymentRequest, providerKey));
+        if (idempotencyKey != null && payment.getProviderPaymentId() != null) {
+            payment.setIdempotencyKey(idempotencyKey);
+            payment.setRequestFingerprint(fingerprint);
+        }
+        try {
+            return paymentRepository.save(payment);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored a result for this key first; its result wins
+            return paymentRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    private PaymentResponse process(IPaymentStrategy paymentStrategy, PaymentRequest paymentRequest, String providerKey) {
+        try {
             log.info("Processing payment of {} {} using {} strategy",
                     paymentRequest.getAmount(),
                     paymentRequest.getCurrency(),
                     paymentRequest.getPaymentType());
 
-            PaymentResponse response = paymentStrategy.processPayment(paymentRequest);
+            PaymentResponse response = paymentStrategy.processPayment(paymentRequest, providerKey);
 
             log.info("Payment processing completed. Success: {}, Payment ID: {}",
                     response.isSuccess(), response.getPaymentId());
@@ -54,5 +158,53 @@ public class PaymentService {
         }
     }
 
+    private static Payment toEntity(PaymentRequest request, Long userId, PaymentResponse response) {
+        Payment.PaymentBuilder payment = Payment.builder()
+                .userId(userId)
+                .providerPaymentId(response.getPaymentId())
+                .status(response.getStatus())
+                .paymentMethod(response.getPaymentMethod())
+                .clientSecret(response.getClientSecret())
+                // Only a settled charge counts, as in PaymentWebhookService; requires_action is not paid yet
+                .success("succeeded".equals(response.getStatus()))
+                .errorMessage(response.getErrorMessage())
+                .createdAt(response.getCreatedAt());
+        if (request != null) {
+            payment.itineraryId(request.getItineraryId())
+                    .amount(request.getAmount())
+                    .currency(request.getCurrency())
+                    .description(request.getDescription());
+            if (response.getPaymentMethod() == null) {
+                payment.paymentMethod(request.getPaymentType());
+            }
+        }
+        return payment.build();
+    }
+
+    /**
+     * The response to a charge request. Unlike history, it reports a charge
+     * waiting for 3-D Secure as successful, since the client goes on to
+     * confirm it with the client secret.
+     */
+    private static PaymentResponse toChargeResponse(Payment payment) {
+        PaymentResponse response = toResponse(payment);
+        response.setSuccess(payment.isSuccess() || "requires_action".equals(payment.getStatus()));
+        return response;
+    }
 
+    private static PaymentResponse toResponse(Payment payment) {
+        return PaymentResponse.builder()
+                .paymentId(payment.getProviderPaymentId())
+                .status(payment.getStatus())
+                .amount(payment.getAmount())
+                .currency(payment.getCurrency())
+                .paymentMethod(payment.getPaymentMethod())
+                .description(payment.getDescription())
+                .itineraryId(payment.getItineraryId())
+                .clientSecret(payment.getClientSecret())
+                .createdAt(payment.getCreatedAt())
+                .success(payment.isSuccess())
+                .errorMessage(payment.getErrorMessage())
+                .build();
+    }
 }
@@ -0,0 +1,234 @@
+package org.example.service;
+
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import com.stripe.net.Webhook;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.entity.Payment;
+import org.example.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reconciles payment status from Stripe webhooks. {@link #accept} only
+ * verifies the signature and queues the status change, so the provider gets
+ * its acknowledgement straight away; queued changes are applied to the
+ * payments table in batches, one transaction per batch. Stripe will not
+ * redeliver an acknowledged event, so updates are kept for another attempt
+ * when their batch fails to commit, and for up to
+ * {@code payments.webhook.unmatched-ttl} when the payment row has not been
+ * saved yet (the webhook can arrive before the charge call returns).
+ */
+@Slf4j
+@Service
+public class PaymentWebhookService {
+
+    private static final Map<String, String> STATUS_BY_EVENT = Map.of(
+            "payment_intent.succeeded", "succeeded",
+            "payment_intent.payment_failed", "requires_payment_method",
+            "payment_intent.canceled", "canceled",
+            "payment_intent.processing", "processing",
+            "payment_intent.requires_action", "requires_action");
+
+    // Once reached, a later-delivered event for an earlier state must not undo these
+    private static final Set<String> FINAL_STATUSES = Set.of("succeeded", "canceled");
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentIdempotencyStore idempotencyStore;
+    private final BlockingQueue<StatusUpdate> queue;
+    // Updates to try again on the next run, newest per payment; guarded by this
+    private final Map<String, StatusUpdate> deferred = new LinkedHashMap<>();
+    private final int maxDeferred;
+
+    @Value("${stripe.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${payments.webhook.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payments.webhook.unmatched-ttl:PT10M}")
+    private Duration unmatchedTtl;
+
+    public PaymentWebhookService(PaymentRepository paymentRepository,
+                                 PaymentIdempotencyStore idempotencyStore,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${payments.webhook.queue-capacity:10000}") int queueCapacity) {
+        this.paymentRepository = paymentRepository;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxDeferred = queueCapacity;
+    }
+
+    public boolean isConfigured() {
+        return webhookSecret != null && !webhookSecret.isBlank();
+    }
+
+    /**
+     * Verifies and queues a webhook delivery. Returns false when the queue is
+     * full, in which case the caller should answer with an error so Stripe
+     * redelivers later. Throws {@link SignatureVerificationException} for
+     * payloads that were not signed with our endpoint secret.
+     */
+    public boolean accept(String payload, String signatureHeader) throws SignatureVerificationException {
+        Event event = Webhook.constructEvent(payload, signatureHeader, webhookSecret);
+        String status = STATUS_BY_EVENT.get(event.getType());
+        if (status == null) {
+            log.debug("Ignoring Stripe event {} of type {}", event.getId(), event.getType());
+            return true;
+        }
+        PaymentIntent paymentIntent = paymentIntent(event);
+        if (paymentIntent == null) {
+            log.warn("Stripe event {} has no payment intent", event.getId());
+            return true;
+        }
+        return queue.offer(new StatusUpdate(paymentIntent.getId(), status, event.getCreated(), System.currentTimeMillis()));
+    }
+
+    public int pendingUpdates() {
+        return queue.size();
+    }
+
+    public synchronized int deferredUpdates() {
+        return deferred.size();
+    }
+
+    /**
+     * Applies deferred updates, then everything queued. Each payment row
+     * records the creation time of the last event applied to it, so batches
+     * can be applied in any order. Stops at the first batch that fails to
+     * commit; its updates are deferred to the next run.
+     */
+    @Scheduled(fixedDelayString = "${payments.webhook.flush-interval-ms:500}")
+    public synchronized void applyQueuedUpdates() {
+        List<StatusUpdate> retries = new ArrayList<>(deferred.values());
+        deferred.clear();
+        for (int from = 0; from < retries.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, retries.size());
+            if (!applyBatch(retries.subList(from, to))) {
+                retries.subList(to, retries.size()).forEach(update -> defer(update, false));
+                return;
+            }
+        }
+        List<StatusUpdate> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!applyBatch(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        applyQueuedUpdates();
+        int lost = deferredUpdates() + queue.size();
+        if (lost > 0) {
+            log.warn("Shutting down with {} payment status updates not applied", lost);
+        }
+    }
+
+    /**
+     * Applies one batch in a transaction. Returns false, deferring every
+     * update in it, if the transaction fails.
+     */
+    private boolean applyBatch(List<StatusUpdate> batch) {
+        // Keep the newest event per payment; Stripe does not guarantee delivery order
+        Map<String, StatusUpdate> latest = new HashMap<>();
+        for (StatusUpdate update : batch) {
+            latest.merge(update.paymentId(), update, StatusUpdate::newer);
+        }
+        Set<String> unmatched = new HashSet<>(latest.keySet());
+        List<Payment> changed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Payment payment : paymentRepository.findByProviderPaymentIdIn(latest.keySet())) {
+                    unmatched.remove(payment.getProviderPaymentId());
+                    if (apply(payment, latest.get(payment.getProviderPaymentId()))) {
+                        changed.add(payment);
+                    }
+                }
+                log.info("Applied {} of {} payment status updates", changed.size(), batch.size());
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to apply {} payment status updates, retrying: {}", latest.size(), e.getMessage());
+            latest.values().forEach(update -> defer(update, false));
+            return false;
+        }
+        // Replays of these payments' idempotency keys must see the new status
+        for (Payment payment : changed) {
+            if (payment.getIdempotencyKey() != null) {
+                idempotencyStore.evict(payment.getUserId(), payment.getIdempotencyKey());
+            }
+        }
+        for (String paymentId : unmatched) {
+            defer(latest.get(paymentId), true);
+        }
+        return true;
+    }
+
+    private void defer(StatusUpdate update, boolean unmatched) {
+        if (unmatched && System.currentTimeMillis() - update.receivedAt() > unmatchedTtl.toMillis()) {
+            log.warn("Dropping status {} for unknown payment {} after {}", update.status(), update.paymentId(), unmatchedTtl);
+            return;
+        }
+        if (deferred.size() >= maxDeferred && !deferred.containsKey(update.paymentId())) {
+            log.error("Dropping status {} for payment {}: {} updates already waiting for a retry",
+                    update.status(), update.paymentId(), deferred.size());
+            return;
+        }
+        deferred.merge(update.paymentId(), update, StatusUpdate::newer);
+    }
+
+    private static boolean apply(Payment payment, StatusUpdate update) {
+        Long lastEvent = payment.getLastEventCreated();
+        if (lastEvent != null && update.created() < lastEvent) {
+            return false;
+        }
+        if (FINAL_STATUSES.contains(payment.getStatus()) && !FINAL_STATUSES.contains(update.status())) {
+            return false;
+        }
+        payment.setStatus(update.status());
+        payment.setSuccess("succeeded".equals(update.status()));
+        payment.setLastEventCreated(update.created());
+        return true;
+    }
+
+    private static PaymentIntent paymentIntent(Event event) {
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object == null) {
+            // Event rendered with a different API version than the library's; the fields we read are stable
+            try {
+                object = event.getDataObjectDeserializer().deserializeUnsafe();
+            } catch (EventDataObjectDeserializationException e) {
+                return null;
+            }
+        }
+        return object instanceof PaymentIntent paymentIntent ? paymentIntent : null;
+    }
+
+    private record StatusUpdate(String paymentId, String status, long created, long receivedAt) {
+
+        private static StatusUpdate newer(StatusUpdate a, StatusUpdate b) {
+            return b.created() >= a.created() ? b : a;
+        }
+    }
+}
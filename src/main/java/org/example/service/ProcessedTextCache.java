@@ -0,0 +1,61 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.model.entity.Itinerary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bounded cache of the analyzed form of itinerary text. Entries are keyed by
+ * id and updatedAt, so an edited itinerary simply misses and the stale entry
+ * ages out. The cache is weighted by character count; eviction is Caffeine's
+ * W-TinyLFU and hit/miss/eviction counters are published as
+ * {@code cache.*{cache=itinerary.processedText}} meters.
+ */
+@Component
+public class ProcessedTextCache {
+
+    private final TextProcessingService textProcessingService;
+    private final Cache<Key, ProcessedItinerary> cache;
+
+    public ProcessedTextCache(TextProcessingService textProcessingService,
+                              MeterRegistry meterRegistry,
+                              @Value("${search.text-cache.max-chars:20000000}") long maxChars) {
+        this.textProcessingService = textProcessingService;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher((Key key, ProcessedItinerary value) -> value.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "itinerary.processedText");
+    }
+
+    public ProcessedItinerary get(Itinerary itinerary) {
+        return cache.get(new Key(itinerary.getId(), itinerary.getUpdatedAt()), key -> new ProcessedItinerary(
+                textProcessingService.processText(itinerary.getDestination()),
+                textProcessingService.processText(itinerary.getFullItinerary())));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private record Key(Long id, LocalDateTime updatedAt) {
+    }
+
+    public record ProcessedItinerary(String destination, String fullItinerary) {
+        int weight() {
+            return destination.length() + fullItinerary.length();
+        }
+    }
+}
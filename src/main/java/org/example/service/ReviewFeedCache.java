@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.dto.ReviewResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The newest reviews, kept in memory because nearly every feed request is for
+ * the first page. Reviews submitted through this instance are added in place;
+ * the snapshot is also reloaded every {@code reviews.feed.refresh-interval}
+ * so reviews written by other instances show up.
+ */
+@Component
+public class ReviewFeedCache {
+
+    private static final Comparator<ReviewResponse> NEWEST_FIRST = Comparator
+            .comparing(ReviewResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ReviewResponse::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final int capacity;
+    private final long refreshIntervalNanos;
+
+    private volatile Snapshot snapshot;
+
+    public ReviewFeedCache(@Value("${reviews.feed.cached-size:100}") int capacity,
+                           @Value("${reviews.feed.refresh-interval:PT1M}") Duration refreshInterval) {
+        this.capacity = capacity;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns up to {@link #capacity()} newest reviews, newest first, calling
+     * {@code loader} when the snapshot is missing or due for a refresh.
+     */
+    public List<ReviewResponse> newest(Supplier<List<ReviewResponse>> loader) {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt() < refreshIntervalNanos) {
+            return current.reviews();
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || System.nanoTime() - current.loadedAt() >= refreshIntervalNanos) {
+                current = new Snapshot(List.copyOf(loader.get()), System.nanoTime());
+                snapshot = current;
+            }
+            return current.reviews();
+        }
+    }
+
+    /**
+     * Adds a newly saved review without going back to the database.
+     */
+    public synchronized void add(ReviewResponse review) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Nothing loaded yet; the first read will include this review
+            return;
+        }
+        for (ReviewResponse cached : current.reviews()) {
+            if (cached.getId().equals(review.getId())) {
+                // A reload already picked it up
+                return;
+            }
+        }
+        List<ReviewResponse> reviews = new ArrayList<>(current.reviews().size() + 1);
+        reviews.addAll(current.reviews());
+        reviews.add(review);
+        reviews.sort(NEWEST_FIRST);
+        if (reviews.size() > capacity) {
+            reviews = reviews.subList(0, capacity);
+        }
+        snapshot = new Snapshot(List.copyOf(reviews), current.loadedAt());
+    }
+
+    private record Snapshot(List<ReviewResponse> reviews, long loadedAt) {
+    }
+}
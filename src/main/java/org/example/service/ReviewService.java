@@ -1,29 +1,129 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CursorPage;
+import org.example.dto.DestinationRatingResponse;
 import org.example.dto.ReviewRequest;
 import org.example.dto.ReviewResponse;
+import org.example.dto.ReviewSearchResponse;
 import org.example.model.entity.Review;
 import org.example.model.entity.User;
 import org.example.repository.ReviewRepository;
 import org.example.repository.UserRepository;
+import org.example.service.search.DestinationSuggester;
+import org.example.service.search.ReviewIndexService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
+    private final ReviewFeedCache reviewFeedCache;
+    private final DestinationRatingService destinationRatingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReviewIndexService reviewIndexService;
+    private final DestinationSuggester destinationSuggester;
 
+    @Value("${reviews.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reviews.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Returns the newest reviews (up to {@code reviews.feed.cached-size}),
+     * served from memory. Use {@link #getReviewsPage} to read further back.
+     */
     public List<ReviewResponse> getAllReviews() {
-        List<Review> reviews = reviewRepository.findAllByOrderByCreatedAtDesc();
-        return mapToResponse(reviews);
+        return newestReviews();
+    }
+
+    public CursorPage<ReviewResponse> getReviewsPage(String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        if (cursor == null || cursor.isBlank()) {
+            List<ReviewResponse> newest = newestReviews();
+            // The cache answers unless the page would need rows past its end
+            if (pageSize < newest.size() || newest.size() < reviewFeedCache.capacity()) {
+                return toPage(newest, pageSize);
+            }
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        PageCursor position = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        List<Review> reviews = position == null
+                ? reviewRepository.findFirstPage(limit)
+                : reviewRepository.findPageAfter(position.createdAt(), position.id(), limit);
+        return toPage(mapToResponse(reviews), pageSize);
+    }
+
+    private List<ReviewResponse> newestReviews() {
+        return reviewFeedCache.newest(() ->
+                mapToResponse(reviewRepository.findFirstPage(PageRequest.of(0, reviewFeedCache.capacity()))));
+    }
+
+    private static CursorPage<ReviewResponse> toPage(List<ReviewResponse> reviews, int pageSize) {
+        boolean hasMore = reviews.size() > pageSize;
+        List<ReviewResponse> page = hasMore ? reviews.subList(0, pageSize) : reviews;
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewResponse last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return CursorPage.<ReviewResponse>builder()
+                .items(page)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Ranked search over review titles, comments and destinations; see
+     * {@link ReviewIndexService#search} for the query syntax.
+     */
+    public ReviewSearchResponse searchReviews(String query, String destination, Integer limit, String userName) {
+        if (!reviewIndexService.isAvailable()) {
+            throw new RuntimeException("Review search is currently unavailable");
+        }
+        ReviewIndexService.SearchHits hits = reviewIndexService.search(query, destination,
+                limit == null || limit <= 0 ? defaultPageSize : limit, userName);
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < hits.ids().size(); i++) {
+            rank.put(hits.ids().get(i), i);
+        }
+        List<ReviewResponse> results = mapToResponse(reviewRepository.findAllById(hits.ids()));
+        results.sort(Comparator.comparing(review -> rank.get(review.getId())));
+        return ReviewSearchResponse.builder()
+                .results(results)
+                .totalHits(hits.totalHits())
+                .destinations(hits.destinations())
+                .build();
+    }
+
+    public DestinationRatingResponse getDestinationStats(String destination) {
+        return destinationRatingService.getStats(destination);
+    }
+
+    public int rebuildDestinationStats() {
+        return destinationRatingService.rebuild();
     }
 
     public ReviewResponse submitResponse(ReviewRequest request, String userName) {
+        if (!DestinationRatingService.isValidRating(request.getRating())) {
+            throw new RuntimeException("Rating must be between " + DestinationRatingService.MIN_RATING
+                    + " and " + DestinationRatingService.MAX_RATING);
+        }
         Review review = new Review();
         review.setReviewerName(userName);
         review.setRating(request.getRating());
@@ -38,8 +138,17 @@ public class ReviewService {
         review.setTitle(request.getTitle());
         review.setDestination(request.getDestination());
 
-        Review savedReview = reviewRepository.save(review);
-        return mapToReviewResponse(savedReview);
+        // The destination totals commit with the review or not at all
+        Review savedReview = destinationRatingService.whileRecording(() -> transactionTemplate.execute(status -> {
+            Review saved = reviewRepository.save(review);
+            destinationRatingService.record(saved.getDestination(), saved.getRating());
+            return saved;
+        }));
+        reviewIndexService.index(savedReview);
+        destinationSuggester.record(savedReview.getDestination());
+        ReviewResponse response = mapToReviewResponse(savedReview);
+        reviewFeedCache.add(response);
+        return response;
     }
 
     private List<ReviewResponse> mapToResponse(List<Review> reviews) {
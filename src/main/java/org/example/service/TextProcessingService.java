@@ -1,23 +1,58 @@
-
 package org.example.service;
 
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.LowerCaseFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.en.PorterStemFilter;
 import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.synonym.SolrSynonymParser;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 
+@Slf4j
 @Service
 public class TextProcessingService {
+    // Per-thread output buffer for processText; dropped when a huge input made it grow past this
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> PROCESS_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    /**
+     * Receives each analyzed term as a view over the tokenizer's reusable
+     * buffer. The buffer is only valid for the duration of the call.
+     */
+    @FunctionalInterface
+    public interface TermConsumer {
+        void accept(char[] buffer, int length);
+    }
+
     private final Analyzer analyzer;
+    private final Analyzer queryAnalyzer;
+
     public TextProcessingService(){
+        this(null);
+    }
+
+    /**
+     * {@code synonyms} is a Solr-format synonym file ("nyc, new york" per
+     * line). Synonyms are only expanded at query time, so editing the file
+     * takes effect on restart without reindexing.
+     */
+    @Autowired
+    public TextProcessingService(@Value("${search.synonyms.path:classpath:search/synonyms.txt}") Resource synonyms){
         analyzer=new Analyzer() {
             @Override
             protected TokenStreamComponents createComponents(String s) {
@@ -27,30 +62,102 @@ public class TextProcessingService {
                 return new TokenStreamComponents(tokenizer, filter);
             }
         };
+        SynonymMap synonymMap = loadSynonyms(synonyms);
+        if (synonymMap == null) {
+            queryAnalyzer = analyzer;
+            return;
+        }
+        queryAnalyzer=new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String s) {
+                StandardTokenizer tokenizer=new StandardTokenizer();
+                TokenStream filter = new LowerCaseFilter(tokenizer);
+                // Before stemming, so rules are written with plain words
+                filter = new SynonymGraphFilter(filter, synonymMap, true);
+                filter = new PorterStemFilter(filter);
+                return new TokenStreamComponents(tokenizer, filter);
+            }
+        };
     }
-    public List<String> analyzeText(String text) throws IOException {
-        List<String > tokens=new ArrayList<>();
-        try(TokenStream tokenStream = analyzer.tokenStream("", new StringReader(text))){
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * The index analyzer plus synonym expansion. Produces a token graph, so
+     * queries should be built with Lucene's {@code QueryBuilder}.
+     */
+    public Analyzer getQueryAnalyzer() {
+        return queryAnalyzer;
+    }
+
+    private static SynonymMap loadSynonyms(Resource synonyms) {
+        if (synonyms == null || !synonyms.exists()) {
+            return null;
+        }
+        Analyzer ruleAnalyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String s) {
+                StandardTokenizer tokenizer = new StandardTokenizer();
+                return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+            }
+        };
+        try (Reader reader = new InputStreamReader(synonyms.getInputStream(), StandardCharsets.UTF_8)) {
+            SolrSynonymParser parser = new SolrSynonymParser(true, true, ruleAnalyzer);
+            parser.parse(reader);
+            SynonymMap map = parser.build();
+            // An empty file builds a map without an FST, which the filter rejects
+            return map.fst == null ? null : map;
+        } catch (IOException | ParseException e) {
+            log.error("Could not load synonyms from {}, searching without them: {}", synonyms.getDescription(), e.getMessage());
+            return null;
+        } finally {
+            ruleAnalyzer.close();
+        }
+    }
+
+    /**
+     * Streams the stemmed terms of {@code text} without allocating a String
+     * per token. The analyzer reuses its token stream components and string
+     * reader per thread.
+     */
+    public void forEachTerm(String text, TermConsumer consumer) throws IOException {
+        try(TokenStream tokenStream = analyzer.tokenStream("", text)){
             CharTermAttribute termAttribute=tokenStream.addAttribute(CharTermAttribute.class);
             tokenStream.reset();
             while (tokenStream.incrementToken()){
-                String token = termAttribute.toString();
-                if(!token.trim().isEmpty()){
-                    tokens.add(token);
+                if(termAttribute.length() > 0){
+                    consumer.accept(termAttribute.buffer(), termAttribute.length());
                 }
             }
             tokenStream.end();
         }
+    }
+
+    public List<String> analyzeText(String text) throws IOException {
+        List<String > tokens=new ArrayList<>();
+        forEachTerm(text, (buffer, length) -> tokens.add(new String(buffer, 0, length)));
         return tokens;
     }
     public String processText(String text){
-        if(text==null || text.trim().isEmpty())
+        if(text==null || text.isBlank())
             return "";
+        StringBuilder processed = PROCESS_BUFFER.get();
+        processed.setLength(0);
         try{
-            List<String> processedTokens = analyzeText(text);
-            return String.join(" ", processedTokens);
+            forEachTerm(text, (buffer, length) -> {
+                if (processed.length() > 0) {
+                    processed.append(' ');
+                }
+                processed.append(buffer, 0, length);
+            });
+            return processed.toString();
         }catch (Exception e){
             return text.toLowerCase();
+        }finally {
+            if (processed.capacity() > MAX_RETAINED_BUFFER) {
+                PROCESS_BUFFER.remove();
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Tracks the current token version of each user so stateless JWTs can be
+ * revoked. Versions are cached for a short TTL, which bounds how long a
+ * revoked token keeps working on other instances.
+ */
+@Service
+public class TokenVersionService {
+
+    // Cached for users that no longer exist so their tokens never match
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final LoadingCache<Long, Integer> versions;
+
+    public TokenVersionService(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.token-version.ttl:PT30S}") Duration ttl,
+                               @Value("${security.token-version.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(UNKNOWN_USER));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "tokenVersions");
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return versions.get(userId) == tokenVersion;
+    }
+
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        versions.invalidate(userId);
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) {
+            versions.invalidate(userId);
+        }
+    }
+}
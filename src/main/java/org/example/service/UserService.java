@@ -6,6 +6,8 @@ import org.aspectj.apache.bcel.generic.RET;
 import org.example.dto.*;
 import org.example.model.entity.User;
 import org.example.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -15,6 +17,8 @@ public class UserService {
     private final UserRepository userRepository;
     private final JwtHelper jwtHelper;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
 
     public AuthResponse signUp(SignUpRequest signUpRequest) {
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
@@ -36,10 +40,10 @@ public class UserService {
                 .phoneNumber(signUpRequest.getPhoneNumber())
                 .build();
 
-        User savedUser = userRepository.save(user);
+        User savedUser = saveUser(user);
 
         // Generate JWT token
-        String token = jwtHelper.generateToken(savedUser.getUsername());
+        String token = jwtHelper.generateToken(savedUser);
 
         return new AuthResponse(
                 token,
@@ -79,7 +83,7 @@ public class UserService {
         }
 
         // Generate JWT token
-        String token = jwtHelper.generateToken(user.getUsername());
+        String token = jwtHelper.generateToken(user);
 
         return new AuthResponse(
                 token,
@@ -112,15 +116,37 @@ public class UserService {
         String email = googleAuthRequest.getUserData().getEmail();
         User user = userRepository.findByEmail(email).orElse(null);
         if (user != null) {
-            String token = jwtHelper.generateToken(user.getEmail());
+            String token = jwtHelper.generateToken(user);
             return new AuthResponse(token, "Bearer", user.getId(), user.getEmail(), user.getEmail(), user.getFirstName(), user.getLastName(), user.getRole());
         }
         String userName=googleAuthRequest.getUserData().getEmail();
         User newUser=User.builder().username(userName).email(email).password(passwordEncoder.encode("GOOGLE_AUTH"+System.currentTimeMillis()))
                 .firstName(googleAuthRequest.getUserData().getFirstName()).lastName(googleAuthRequest.getUserData().getLastName())
                 .phoneNumber(null).build();
-        User savedUser=userRepository.save(newUser);
-        String token=jwtHelper.generateToken(savedUser.getUsername());
+        User savedUser=saveUser(newUser);
+        String token=jwtHelper.generateToken(savedUser);
         return new AuthResponse(token, "Bearer", savedUser.getId(), savedUser.getEmail(), savedUser.getEmail(), savedUser.getFirstName(), savedUser.getLastName(), savedUser.getRole());
     }
-}
\ No newline at end of file
+
+    public void revokeTokens(Long userId) {
+        tokenVersionService.revokeAll(userId);
+    }
+
+    /**
+     * Accounts created before signup set the enabled flag and token version
+     * would otherwise all be treated as disabled. Only touches rows without a
+     * version, so it is a no-op once they have been migrated.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enableLegacyUsers() {
+        userRepository.enableUnversionedUsers();
+    }
+
+    // All user writes go through here so cached authentication details never outlive a change
+    private User saveUser(User user) {
+        User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getUsername());
+        tokenVersionService.evict(savedUser.getId());
+        return savedUser;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.service.mail;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one bulk send. Recipient outcomes are filled in by the sender
+ * thread while clients poll the job, so counters are atomic and the result
+ * list is only exposed as a snapshot.
+ */
+@Getter
+public class BulkMailJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED }
+
+    public enum Outcome { SENT, FAILED }
+
+    public record RecipientResult(String recipient, Outcome outcome, String error) {
+    }
+
+    private final String jobId;
+    private final int total;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime completedAt;
+    @JsonIgnore
+    private final AtomicInteger sentCount = new AtomicInteger();
+    @JsonIgnore
+    private final AtomicInteger failedCount = new AtomicInteger();
+    @JsonIgnore
+    private final List<RecipientResult> results;
+
+    BulkMailJob(String jobId, int total) {
+        this.jobId = jobId;
+        this.total = total;
+        this.results = Collections.synchronizedList(new ArrayList<>(total));
+    }
+
+    public int getSent() {
+        return sentCount.get();
+    }
+
+    public int getFailed() {
+        return failedCount.get();
+    }
+
+    public List<RecipientResult> getRecipients() {
+        synchronized (results) {
+            return List.copyOf(results);
+        }
+    }
+
+    void started() {
+        status = Status.RUNNING;
+    }
+
+    void completed() {
+        completedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void sent(String recipient) {
+        sentCount.incrementAndGet();
+        results.add(new RecipientResult(recipient, Outcome.SENT, null));
+    }
+
+    void failed(String recipient, String error) {
+        failedCount.incrementAndGet();
+        results.add(new RecipientResult(recipient, Outcome.FAILED, error));
+    }
+}
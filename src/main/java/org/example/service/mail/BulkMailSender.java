@@ -0,0 +1,178 @@
+package org.example.service.mail;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends newsletter-style mail to many recipients. Recipients are processed in
+ * batches, each batch over a single connection from
+ * {@link SmtpConnectionPool}, and sends are paced to
+ * {@code mail.bulk.rate-per-second}. Messages are built one recipient at a
+ * time so a large job never holds all of its MimeMessages in memory.
+ */
+@Slf4j
+@Component
+public class BulkMailSender {
+
+    private final SmtpConnectionPool connectionPool;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, BulkMailJob> jobs;
+
+    @Value("${mail.bulk.batch-size:100}")
+    private int batchSize;
+
+    @Value("${mail.bulk.rate-per-second:20}")
+    private double ratePerSecond;
+
+    public BulkMailSender(SmtpConnectionPool connectionPool,
+                          @Value("${mail.bulk.concurrent-jobs:1}") int concurrentJobs,
+                          @Value("${mail.bulk.queued-jobs:10}") int queuedJobs,
+                          @Value("${mail.bulk.job-retention:PT24H}") Duration jobRetention) {
+        this.connectionPool = connectionPool;
+        this.executor = new ThreadPoolExecutor(concurrentJobs, concurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queuedJobs),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-bulk");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .build();
+    }
+
+    /**
+     * Starts a bulk job and returns it immediately. Throws
+     * {@link RejectedExecutionException} when too many
+     * jobs are already waiting.
+     */
+    public BulkMailJob submit(List<String> recipients, Function<String, MimeMessage> messageFactory) {
+        BulkMailJob job = new BulkMailJob(UUID.randomUUID().toString(), recipients.size());
+        jobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> run(job, recipients, messageFactory));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getJobId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<BulkMailJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    private void run(BulkMailJob job, List<String> recipients, Function<String, MimeMessage> messageFactory) {
+        job.started();
+        long intervalNanos = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0L;
+        long nextSendAt = System.nanoTime();
+        try {
+            for (int from = 0; from < recipients.size() && !Thread.currentThread().isInterrupted(); from += batchSize) {
+                List<String> batch = recipients.subList(from, Math.min(from + batchSize, recipients.size()));
+                nextSendAt = sendBatch(job, batch, messageFactory, nextSendAt, intervalNanos);
+            }
+        } catch (RuntimeException e) {
+            log.error("Bulk mail job {} aborted: {}", job.getJobId(), e.getMessage());
+        } finally {
+            job.completed();
+            log.info("Bulk mail job {} finished: {} sent, {} failed of {}",
+                    job.getJobId(), job.getSent(), job.getFailed(), job.getTotal());
+        }
+    }
+
+    /**
+     * Sends one batch over a single connection. If the connection fails
+     * mid-batch it is replaced and the current recipient is retried once;
+     * recipients the server rejects are recorded as failed without a retry.
+     */
+    private long sendBatch(BulkMailJob job, List<String> batch, Function<String, MimeMessage> messageFactory,
+                           long nextSendAt, long intervalNanos) {
+        Transport transport = null;
+        try {
+            for (String recipient : batch) {
+                nextSendAt = throttle(nextSendAt, intervalNanos);
+                MimeMessage message;
+                try {
+                    message = messageFactory.apply(recipient);
+                } catch (RuntimeException e) {
+                    job.failed(recipient, e.getMessage());
+                    continue;
+                }
+                boolean retried = false;
+                while (true) {
+                    try {
+                        if (transport == null) {
+                            transport = connectionPool.borrow();
+                        }
+                        send(transport, message);
+                        job.sent(recipient);
+                        break;
+                    } catch (SendFailedException e) {
+                        job.failed(recipient, e.getMessage());
+                        break;
+                    } catch (MessagingException e) {
+                        if (transport != null) {
+                            connectionPool.release(transport, true);
+                            transport = null;
+                        }
+                        if (retried) {
+                            job.failed(recipient, e.getMessage());
+                            break;
+                        }
+                        retried = true;
+                    }
+                }
+            }
+        } finally {
+            if (transport != null) {
+                connectionPool.release(transport, false);
+            }
+        }
+        return nextSendAt;
+    }
+
+    private static void send(Transport transport, MimeMessage message) throws MessagingException {
+        message.setSentDate(new Date());
+        message.saveChanges();
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private static long throttle(long nextSendAt, long intervalNanos) {
+        if (intervalNanos == 0) {
+            return nextSendAt;
+        }
+        long now = System.nanoTime();
+        if (nextSendAt > now) {
+            LockSupport.parkNanos(nextSendAt - now);
+            return nextSendAt + intervalNanos;
+        }
+        // Behind schedule (slow server); don't burst to catch up
+        return now + intervalNanos;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
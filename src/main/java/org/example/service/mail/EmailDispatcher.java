@@ -0,0 +1,127 @@
+package org.example.service.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends mail off the request thread. Messages wait in a bounded queue for a
+ * small pool of workers that share {@link SmtpConnectionPool} connections;
+ * when the queue is full {@link #submit} throws
+ * {@link RejectedExecutionException} so callers can push back.
+ */
+@Slf4j
+@Component
+public class EmailDispatcher {
+
+    private final SmtpConnectionPool connectionPool;
+    private final ThreadPoolExecutor executor;
+
+    public EmailDispatcher(SmtpConnectionPool connectionPool,
+                           @Value("${mail.dispatch.workers:4}") int workers,
+                           @Value("${mail.dispatch.queue-capacity:1000}") int queueCapacity) {
+        this.connectionPool = connectionPool;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-sender-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Sends the message on a worker thread, unless it is still queued at
+     * {@code startBy} (a {@link System#nanoTime} value); then the future
+     * fails with {@link CancellationException} and nothing is sent. Otherwise
+     * it fails with the {@link MessagingException} if delivery failed.
+     */
+    public CompletableFuture<Void> submit(MimeMessage message, long startBy) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (System.nanoTime() - startBy > 0) {
+                result.completeExceptionally(new CancellationException("Not started before its deadline"));
+                return;
+            }
+            try {
+                send(message);
+                result.complete(null);
+            } catch (MessagingException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends on a pooled connection, retrying once on a fresh connection in
+     * case the pooled one went stale between the NOOP check and the send.
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        try {
+            sendOnce(message);
+        } catch (SendFailedException e) {
+            // Rejected recipients, not a connection problem
+            throw e;
+        } catch (MessagingException e) {
+            log.debug("Retrying send on a new connection: {}", e.getMessage());
+            sendOnce(message);
+        }
+    }
+
+    private void sendOnce(MimeMessage message) throws MessagingException {
+        Transport transport = connectionPool.borrow();
+        boolean broken = false;
+        try {
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (SendFailedException e) {
+            throw e;
+        } catch (MessagingException e) {
+            broken = true;
+            throw e;
+        } finally {
+            connectionPool.release(transport, broken);
+        }
+    }
+
+    public int queuedMessages() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * How many more messages {@link #submit} would take right now: free
+     * queue slots plus idle workers.
+     */
+    public int freeCapacity() {
+        return executor.getQueue().remainingCapacity() + executor.getMaximumPoolSize() - executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Mail dispatcher stopped with {} messages still queued", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+}
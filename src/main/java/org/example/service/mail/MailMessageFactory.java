@@ -0,0 +1,44 @@
+package org.example.service.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MailMessageFactory {
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    /**
+     * Builds a plain-text message from the configured sender. Throws a
+     * RuntimeException when an address cannot be parsed.
+     */
+    public MimeMessage create(String to, String subject, String text, String cc, String bcc) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(text);
+            helper.setFrom(fromEmail);
+
+            if (cc != null && !cc.trim().isEmpty()) {
+                helper.setCc(cc);
+            }
+            if (bcc != null && !bcc.trim().isEmpty()) {
+                helper.setBcc(bcc);
+            }
+            return message;
+        } catch (MessagingException e) {
+            throw new RuntimeException("Invalid email: " + e.getMessage(), e);
+        }
+    }
+}
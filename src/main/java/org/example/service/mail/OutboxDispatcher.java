@@ -0,0 +1,258 @@
+package org.example.service.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.entity.EmailOutbox;
+import org.example.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers emails from the outbox table. Each poll claims a batch of due rows
+ * in a short transaction (marking them SENDING with a lease) and hands them
+ * to the {@link EmailDispatcher} workers without waiting. Workers queue each
+ * outcome, and the next poll saves the queued outcomes in one transaction.
+ * Neither the scheduler thread nor a database lock waits on SMTP. Failed
+ * sends are retried with exponential backoff up to
+ * {@code mail.outbox.max-attempts}.
+ * <p>
+ * A poll claims no more rows than the workers can take, and a send must
+ * start within the first half of its lease, so a row is never sent by one
+ * claim after its lease ran out and another claim took it. The row's
+ * version keeps a late outcome from overwriting the newer claim.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final List<EmailOutbox.Status> CLAIMABLE = List.of(EmailOutbox.Status.PENDING, EmailOutbox.Status.SENDING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailDispatcher emailDispatcher;
+    private final MailMessageFactory messageFactory;
+    private final TransactionTemplate transactionTemplate;
+    // Rows whose send has finished, waiting to be saved by the next poll
+    private final Queue<EmailOutbox> completed = new ConcurrentLinkedQueue<>();
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${mail.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${mail.outbox.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${mail.outbox.retention:P7D}")
+    private Duration retention;
+
+    public OutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                            EmailDispatcher emailDispatcher,
+                            MailMessageFactory messageFactory,
+                            TransactionTemplate transactionTemplate) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailDispatcher = emailDispatcher;
+        this.messageFactory = messageFactory;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:1000}")
+    public void dispatchDue() {
+        saveCompleted();
+        int free = emailDispatcher.freeCapacity();
+        while (free > 0) {
+            int limit = Math.min(batchSize, free);
+            long claimedAt = System.nanoTime();
+            List<EmailOutbox> batch = claim(limit);
+            if (batch.isEmpty() || !deliver(batch, claimedAt) || batch.size() < limit) {
+                return;
+            }
+            free -= batch.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        saveCompleted();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        int deleted = emailOutboxRepository.deleteByStatusAndSentAtBefore(EmailOutbox.Status.SENT,
+                LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} sent emails from the outbox", deleted);
+        }
+    }
+
+    /**
+     * Locks due rows (skipping rows another instance holds), marks them
+     * SENDING until the lease expires and commits. SENDING rows whose lease
+     * ran out belong to a dispatcher that died and are claimed again.
+     */
+    private List<EmailOutbox> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(CLAIMABLE, now, PageRequest.of(0, limit));
+            for (EmailOutbox email : due) {
+                email.setStatus(EmailOutbox.Status.SENDING);
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plus(lease));
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Submits every row to the workers. Returns false if the workers were
+     * saturated; rows they could not take go back to PENDING without using
+     * up an attempt. A send that has not started by half the lease is
+     * skipped and its row released the same way, leaving the other half for
+     * the SMTP exchange itself.
+     */
+    private boolean deliver(List<EmailOutbox> batch, long claimedAt) {
+        long startBy = claimedAt + lease.toNanos() / 2;
+        long deadline = claimedAt + lease.toNanos();
+        List<EmailOutbox> rejected = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            CompletableFuture<Void> send;
+            try {
+                send = emailDispatcher.submit(messageFactory.create(email.getRecipient(), email.getSubject(),
+                        email.getBody(), email.getCc(), email.getBcc()), startBy);
+            } catch (RejectedExecutionException e) {
+                rejected.add(release(email));
+                continue;
+            } catch (RuntimeException e) {
+                send = CompletableFuture.failedFuture(e);
+            }
+            send.whenComplete((ignored, error) -> complete(email, error, deadline));
+        }
+        if (!rejected.isEmpty()) {
+            save(rejected);
+        }
+        return rejected.isEmpty();
+    }
+
+    // Hands a claimed row back without counting the claim as an attempt
+    private static EmailOutbox release(EmailOutbox email) {
+        email.setAttempts(email.getAttempts() - 1);
+        email.setStatus(EmailOutbox.Status.PENDING);
+        email.setNextAttemptAt(LocalDateTime.now().plusSeconds(1));
+        return email;
+    }
+
+    private void complete(EmailOutbox email, Throwable error, long deadline) {
+        if (error instanceof CancellationException) {
+            log.warn("Email {} was not sent within half its lease, releasing it", email.getMessageId());
+            completed.add(release(email));
+            return;
+        }
+        if (System.nanoTime() - deadline > 0) {
+            // The lease ran out, so the row may already have been claimed again; leave it to that claim
+            log.warn("Email {} finished after its lease expired, leaving it to be retried", email.getMessageId());
+            return;
+        }
+        if (error == null) {
+            email.setStatus(EmailOutbox.Status.SENT);
+            email.setSentAt(LocalDateTime.now());
+            email.setLastError(null);
+        } else {
+            recordFailure(email, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+        completed.add(email);
+    }
+
+    private void saveCompleted() {
+        List<EmailOutbox> finished = new ArrayList<>();
+        for (EmailOutbox email = completed.poll(); email != null; email = completed.poll()) {
+            finished.add(email);
+        }
+        if (finished.isEmpty()) {
+            return;
+        }
+        try {
+            save(finished);
+        } catch (RuntimeException e) {
+            // Keep the outcomes for the next poll rather than resending delivered mail
+            completed.addAll(finished);
+            log.error("Failed to record {} email outcomes: {}", finished.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the rows in one transaction. If another claim has updated some
+     * of them since, saves the rest one by one and drops the stale ones,
+     * which belong to that claim now.
+     */
+    private void save(List<EmailOutbox> emails) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(emails));
+        } catch (OptimisticLockingFailureException e) {
+            for (EmailOutbox email : emails) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.save(email));
+                } catch (OptimisticLockingFailureException stale) {
+                    log.warn("Email {} was claimed again before its outcome was saved, dropping the outcome",
+                            email.getMessageId());
+                }
+            }
+        }
+    }
+
+    private void recordFailure(EmailOutbox email, Throwable cause) {
+        email.setLastError(truncate(cause.getMessage()));
+        boolean permanent = cause instanceof SendFailedException || !(cause instanceof MessagingException);
+        if (permanent || email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            log.warn("Giving up on email {} after {} attempts: {}", email.getMessageId(), email.getAttempts(), cause.getMessage());
+            return;
+        }
+        email.setStatus(EmailOutbox.Status.PENDING);
+        email.setNextAttemptAt(LocalDateTime.now().plus(backoff(email.getAttempts())));
+        log.info("Email {} failed (attempt {}), retrying at {}: {}",
+                email.getMessageId(), email.getAttempts(), email.getNextAttemptAt(), cause.getMessage());
+    }
+
+    /**
+     * initialBackoff * 2^(attempt-1), capped at maxBackoff, with up to 20%
+     * jitter so a batch that failed together does not retry together.
+     */
+    private Duration backoff(int attempt) {
+        long base = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        long jitter = (long) (capped * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(capped + jitter);
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
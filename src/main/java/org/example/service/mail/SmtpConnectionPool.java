@@ -0,0 +1,98 @@
+package org.example.service.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps authenticated SMTP connections open between messages instead of
+ * connecting per message like {@link JavaMailSenderImpl#send}. Connections
+ * are checked with NOOP when borrowed and replaced if the server dropped them.
+ */
+@Slf4j
+@Component
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<Transport> idle = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${mail.smtp.pool.max-connections:4}") int maxConnections) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(maxConnections);
+    }
+
+    /**
+     * Returns a connected transport, waiting while all connections are in use.
+     * Every borrowed transport must be handed back through {@link #release}.
+     */
+    public Transport borrow() throws MessagingException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+        try {
+            Transport transport;
+            while ((transport = idle.poll()) != null) {
+                if (transport.isConnected()) {
+                    return transport;
+                }
+                closeQuietly(transport);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands a transport back. Broken transports (after a failed send) are
+     * closed rather than reused.
+     */
+    public void release(Transport transport, boolean broken) {
+        try {
+            if (broken || !transport.isConnected()) {
+                closeQuietly(transport);
+            } else {
+                idle.offer(transport);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            closeQuietly(transport);
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport("smtp");
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        log.debug("Opened SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return transport;
+    }
+
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+}
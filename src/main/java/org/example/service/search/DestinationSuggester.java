@@ -0,0 +1,209 @@
+package org.example.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.analyzing.AnalyzingSuggester;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.example.dto.DestinationSuggestion;
+import org.example.model.projection.DestinationCount;
+import org.example.repository.ItineraryRepository;
+import org.example.repository.ReviewRepository;
+import org.example.service.DestinationRatingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Destination typeahead over every destination named by an itinerary or a
+ * review, weighted by how often it is named. Lookups go to an
+ * {@link AnalyzingSuggester} (an FST, so a few bytes per destination and
+ * microsecond lookups) that is never modified in place: new destinations
+ * only bump an in-memory count, and a background task builds a replacement
+ * FST when counts have changed. Counts are reloaded from the database
+ * every {@code search.suggest.reload-interval-ms} to pick up deletes and
+ * other instances' writes.
+ */
+@Slf4j
+@Service
+public class DestinationSuggester {
+
+    private static final int MAX_PREFIX_LENGTH = 100;
+
+    private final ItineraryRepository itineraryRepository;
+    private final ReviewRepository reviewRepository;
+    // Case-insensitive and accent-insensitive, but not stemmed: users type partial words
+    private final Analyzer analyzer = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer tokenizer = new StandardTokenizer();
+            TokenStream filter = new LowerCaseFilter(tokenizer);
+            filter = new ASCIIFoldingFilter(filter);
+            return new TokenStreamComponents(tokenizer, filter);
+        }
+    };
+
+    // Keyed by normalized destination
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Lookup lookup;
+
+    @Value("${search.suggest.max-results:10}")
+    private int maxResults;
+
+    public DestinationSuggester(ItineraryRepository itineraryRepository, ReviewRepository reviewRepository) {
+        this.itineraryRepository = itineraryRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    /**
+     * Destinations starting with {@code prefix} (word by word, ignoring case
+     * and accents), most frequently named first.
+     */
+    public List<DestinationSuggestion> suggest(String prefix, Integer limit) {
+        Lookup current = lookup;
+        if (current == null || prefix == null || prefix.isBlank() || prefix.length() > MAX_PREFIX_LENGTH) {
+            return List.of();
+        }
+        int count = limit == null || limit <= 0 ? maxResults : Math.min(limit, maxResults);
+        try {
+            List<DestinationSuggestion> suggestions = new ArrayList<>(count);
+            for (Lookup.LookupResult result : current.lookup(prefix, false, count)) {
+                suggestions.add(DestinationSuggestion.builder()
+                        .destination(result.key.toString())
+                        .count(result.value)
+                        .build());
+            }
+            return suggestions;
+        } catch (IOException e) {
+            throw new RuntimeException("Destination lookup failed", e);
+        }
+    }
+
+    /**
+     * Counts a newly saved itinerary or review. The suggestion shows up after
+     * the next background rebuild.
+     */
+    public void record(String destination) {
+        String key = DestinationRatingService.normalize(destination);
+        if (key == null) {
+            return;
+        }
+        destinations.computeIfAbsent(key, k -> new Destination(destination.trim())).count.incrementAndGet();
+        dirty.set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.suggest.reload-interval-ms:3600000}",
+            fixedDelayString = "${search.suggest.reload-interval-ms:3600000}")
+    public void reload() {
+        Map<String, Destination> counted = new ConcurrentHashMap<>();
+        count(counted, itineraryRepository.countByDestination());
+        count(counted, reviewRepository.countByDestination());
+        // A save landing between the count queries and this swap is only missed until the next reload
+        destinations.keySet().retainAll(counted.keySet());
+        destinations.putAll(counted);
+        dirty.set(true);
+        rebuildIfChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${search.suggest.rebuild-interval-ms:5000}")
+    public synchronized void rebuildIfChanged() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            AnalyzingSuggester suggester = new AnalyzingSuggester(new ByteBuffersDirectory(), "destinations", analyzer);
+            suggester.build(new DestinationIterator(destinations.values().iterator()));
+            lookup = suggester;
+            log.debug("Built destination suggester with {} entries in {} ms", suggester.getCount(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            dirty.set(true);
+            log.error("Failed to build destination suggester: {}", e.getMessage());
+        }
+    }
+
+    private static void count(Map<String, Destination> counted, List<DestinationCount> rows) {
+        for (DestinationCount row : rows) {
+            String key = DestinationRatingService.normalize(row.getDestination());
+            if (key != null) {
+                counted.computeIfAbsent(key, k -> new Destination(row.getDestination().trim())).count.addAndGet(row.getTotal());
+            }
+        }
+    }
+
+    private static final class Destination {
+        // Spelling of the first occurrence seen, shown to users
+        private final String display;
+        private final AtomicLong count = new AtomicLong();
+
+        private Destination(String display) {
+            this.display = display;
+        }
+    }
+
+    private static final class DestinationIterator implements InputIterator {
+        private final Iterator<Destination> destinations;
+        private long weight;
+
+        private DestinationIterator(Iterator<Destination> destinations) {
+            this.destinations = destinations;
+        }
+
+        @Override
+        public BytesRef next() {
+            if (!destinations.hasNext()) {
+                return null;
+            }
+            Destination destination = destinations.next();
+            // The suggester only accepts int-range weights
+            weight = Math.min(destination.count.get(), Integer.MAX_VALUE);
+            return new BytesRef(destination.display);
+        }
+
+        @Override
+        public long weight() {
+            return weight;
+        }
+
+        @Override
+        public BytesRef payload() {
+            return null;
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return false;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
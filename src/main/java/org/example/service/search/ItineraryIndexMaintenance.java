@@ -0,0 +1,293 @@
+package org.example.service.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.example.dto.IndexCheckResponse;
+import org.example.dto.IndexRebuildStatus;
+import org.example.model.projection.ItineraryIndexRow;
+import org.example.repository.ItineraryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the itinerary index in line with the database. A rebuild streams
+ * every itinerary through {@link LuceneIndex#rebuild} into a new index and
+ * swaps it in; the consistency check compares per-bucket document counts and
+ * checksum sums between the two and can reindex just the buckets that
+ * differ. Runs on startup when the index is empty (or always, with
+ * {@code search.index.rebuild-on-startup}) and on demand from the admin API.
+ */
+@Slf4j
+@Service
+public class ItineraryIndexMaintenance {
+
+    private static final String INDEX_NAME = "itineraries";
+    // Bounds the size of the IN lists used to reload ids and buckets
+    private static final int LOOKUP_CHUNK = 500;
+
+    private final ItineraryIndexService itineraryIndexService;
+    private final ItineraryRepository itineraryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "itinerary-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<IndexRebuildStatus> rebuildStatus = new AtomicReference<>(
+            IndexRebuildStatus.builder().index(INDEX_NAME).state(IndexRebuildStatus.State.IDLE).build());
+
+    @Value("${search.index.rebuild.batch-size:500}")
+    private int batchSize;
+
+    // 0 uses every available core
+    @Value("${search.index.rebuild.threads:0}")
+    private int threads;
+
+    @Value("${search.index.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public ItineraryIndexMaintenance(ItineraryIndexService itineraryIndexService,
+                                     ItineraryRepository itineraryRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.itineraryIndexService = itineraryIndexService;
+        this.itineraryRepository = itineraryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (!itineraryIndexService.isAvailable()) {
+            return;
+        }
+        if (rebuildOnStartup || (itineraryIndexService.index().numDocs() == 0 && itineraryRepository.count() > 0)) {
+            startRebuild();
+        }
+    }
+
+    /**
+     * Starts a rebuild in the background and returns its status. Throws
+     * {@link IllegalStateException} if one is already running.
+     */
+    public IndexRebuildStatus startRebuild() {
+        requireAvailable();
+        IndexRebuildStatus previous = rebuildStatus.get();
+        IndexRebuildStatus running = IndexRebuildStatus.builder()
+                .index(INDEX_NAME)
+                .state(IndexRebuildStatus.State.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build();
+        if (previous.getState() == IndexRebuildStatus.State.RUNNING || !rebuildStatus.compareAndSet(previous, running)) {
+            throw new IllegalStateException("A rebuild of the " + INDEX_NAME + " index is already running");
+        }
+        rebuildExecutor.execute(() -> rebuildStatus.set(rebuild(running)));
+        return running;
+    }
+
+    public IndexRebuildStatus getRebuildStatus() {
+        return rebuildStatus.get();
+    }
+
+    public boolean isAvailable() {
+        return itineraryIndexService.isAvailable();
+    }
+
+    // Covers the replay of writes made during the swap as well as the build
+    private boolean isRebuilding() {
+        return rebuildStatus.get().getState() == IndexRebuildStatus.State.RUNNING
+                || itineraryIndexService.index().isRebuilding();
+    }
+
+    /**
+     * Compares the database with the index bucket by bucket and, when
+     * {@code repair} is set, reindexes the buckets that differ. Writes that
+     * land while the check runs can show up as false mismatches; repairing
+     * them is harmless. Throws {@link IllegalStateException} while a rebuild
+     * is running, since the index it would read is about to be replaced.
+     */
+    public IndexCheckResponse check(boolean repair) {
+        requireAvailable();
+        if (isRebuilding()) {
+            throw new IllegalStateException("A rebuild of the " + INDEX_NAME + " index is running, check again once it has finished");
+        }
+        int buckets = ItineraryIndexService.CHECK_BUCKETS;
+        long[] databaseCounts = new long[buckets];
+        long[] databaseSums = new long[buckets];
+        long[] indexCounts = new long[buckets];
+        long[] indexSums = new long[buckets];
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ItineraryIndexRow> rows = itineraryRepository.streamIndexRows()) {
+                rows.forEach(row -> {
+                    int bucket = ItineraryIndexService.checkBucket(row.getId());
+                    databaseCounts[bucket]++;
+                    databaseSums[bucket] += ItineraryIndexService.checksum(row.getId(), row.getUserId(),
+                            row.getDestination(), row.getFullItinerary());
+                });
+            }
+        });
+        try {
+            LuceneIndex index = itineraryIndexService.index();
+            index.commitAndRefresh();
+            index.search(null, searcher -> {
+                for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                    sumLeaf(leaf.reader(), indexCounts, indexSums);
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the " + INDEX_NAME + " index", e);
+        }
+
+        List<Integer> mismatched = new ArrayList<>();
+        long databaseDocuments = 0;
+        long indexDocuments = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            databaseDocuments += databaseCounts[bucket];
+            indexDocuments += indexCounts[bucket];
+            if (databaseCounts[bucket] != indexCounts[bucket] || databaseSums[bucket] != indexSums[bucket]) {
+                mismatched.add(bucket);
+            }
+        }
+        if (!mismatched.isEmpty()) {
+            log.warn("{} index differs from the database in {} of {} buckets", INDEX_NAME, mismatched.size(), buckets);
+        }
+        boolean repaired = repair && !mismatched.isEmpty() && repairBuckets(mismatched);
+        return IndexCheckResponse.builder()
+                .index(INDEX_NAME)
+                .databaseDocuments(databaseDocuments)
+                .indexDocuments(indexDocuments)
+                .consistent(mismatched.isEmpty())
+                .mismatchedBuckets(mismatched)
+                .repaired(repaired)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private IndexRebuildStatus rebuild(IndexRebuildStatus running) {
+        IndexRebuildStatus.IndexRebuildStatusBuilder result = IndexRebuildStatus.builder()
+                .index(INDEX_NAME)
+                .startedAt(running.getStartedAt());
+        try {
+            int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            LuceneIndex.RebuildResult rebuilt = readOnlyTransaction.execute(status -> {
+                try (Stream<ItineraryIndexRow> rows = itineraryRepository.streamIndexRows()) {
+                    return itineraryIndexService.index().rebuild(rows, itineraryIndexService::toDocument, batchSize, workers);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            int replayed = reindex(rebuilt.changedDuringRebuild());
+            result.state(IndexRebuildStatus.State.COMPLETED)
+                    .documents(rebuilt.documents())
+                    .replayed(replayed);
+        } catch (RuntimeException | IOException e) {
+            log.error("Rebuilding the {} index failed: {}", INDEX_NAME, e.getMessage(), e);
+            result.state(IndexRebuildStatus.State.FAILED).error(e.getMessage());
+        }
+        return result.finishedAt(LocalDateTime.now()).build();
+    }
+
+    /**
+     * Indexes the given itineraries again from the database, removing the
+     * ones that no longer exist.
+     */
+    private int reindex(Set<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LuceneIndex index = itineraryIndexService.index();
+        List<Long> pending = ids.stream().map(Long::valueOf).toList();
+        for (int from = 0; from < pending.size(); from += LOOKUP_CHUNK) {
+            List<Long> chunk = pending.subList(from, Math.min(from + LOOKUP_CHUNK, pending.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            for (ItineraryIndexRow row : itineraryRepository.findIndexRowsByIdIn(chunk)) {
+                index.update(null, ItineraryIndexService.idTerm(row.getId()), itineraryIndexService.toDocument(row));
+                missing.remove(row.getId());
+            }
+            for (Long id : missing) {
+                index.delete(null, ItineraryIndexService.idTerm(id));
+            }
+        }
+        index.commitAndRefresh();
+        return ids.size();
+    }
+
+    private boolean repairBuckets(List<Integer> buckets) {
+        LuceneIndex index = itineraryIndexService.index();
+        try {
+            for (int from = 0; from < buckets.size(); from += LOOKUP_CHUNK) {
+                List<Integer> chunk = buckets.subList(from, Math.min(from + LOOKUP_CHUNK, buckets.size()));
+                for (Integer bucket : chunk) {
+                    index.deleteAll(new Term(ItineraryIndexService.FIELD_CHECK_BUCKET, String.valueOf(bucket)));
+                }
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<ItineraryIndexRow> rows = itineraryRepository.streamIndexRowsInBuckets(
+                            ItineraryIndexService.CHECK_BUCKETS, chunk)) {
+                        rows.forEach(row -> {
+                            try {
+                                index.update(null, ItineraryIndexService.idTerm(row.getId()), itineraryIndexService.toDocument(row));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                });
+            }
+            index.commitAndRefresh();
+            log.info("Reindexed {} mismatched buckets of the {} index", buckets.size(), INDEX_NAME);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Repairing the {} index failed: {}", INDEX_NAME, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private static void sumLeaf(LeafReader reader, long[] counts, long[] sums) throws IOException {
+        Bits liveDocs = reader.getLiveDocs();
+        NumericDocValues ids = DocValues.getNumeric(reader, ItineraryIndexService.FIELD_ID_VALUE);
+        NumericDocValues checksums = DocValues.getNumeric(reader, ItineraryIndexService.FIELD_CHECKSUM);
+        for (int doc = ids.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ids.nextDoc()) {
+            if (liveDocs != null && !liveDocs.get(doc)) {
+                continue;
+            }
+            int bucket = ItineraryIndexService.checkBucket(ids.longValue());
+            counts[bucket]++;
+            // Documents indexed before checksums existed never match, so the check flags them
+            sums[bucket] += checksums.advanceExact(doc) ? checksums.longValue() : -1L;
+        }
+    }
+
+    private void requireAvailable() {
+        if (!itineraryIndexService.isAvailable()) {
+            throw new IllegalStateException("The " + INDEX_NAME + " index is not available");
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.service.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.example.model.entity.Itinerary;
+import org.example.model.projection.ItineraryIndexRow;
+import org.example.service.TextProcessingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk Lucene index over itineraries. Documents are analyzed with the same
+ * chain as {@link TextProcessingService} and every query is restricted to the
+ * owning user, so search cost depends on the matching postings rather than on
+ * how many itineraries the user has. Queries also match synonyms and
+ * misspellings, ranked below exact matches.
+ */
+@Slf4j
+@Service
+public class ItineraryIndexService {
+
+    static final String FIELD_ID = "id";
+    static final String FIELD_ID_VALUE = "idValue";
+    static final String FIELD_USER_ID = "userId";
+    static final String FIELD_DESTINATION = "destination";
+    static final String FIELD_FULL_ITINERARY = "fullItinerary";
+    static final String FIELD_CHECKSUM = "checksum";
+    static final String FIELD_CHECK_BUCKET = "checkBucket";
+
+    // Documents are grouped by id into this many buckets for the consistency check
+    static final int CHECK_BUCKETS = 1024;
+
+    private final TextProcessingService textProcessingService;
+    private final SearchIndexManager searchIndexManager;
+    private final TextQueries textQueries;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.itineraries.path:data/index/itineraries}")
+    private String indexPath;
+
+    @Value("${search.index.max-results:100}")
+    private int maxResults;
+
+    private LuceneIndex index;
+
+    public ItineraryIndexService(TextProcessingService textProcessingService,
+                                 SearchIndexManager searchIndexManager) {
+        this.textProcessingService = textProcessingService;
+        this.searchIndexManager = searchIndexManager;
+        this.textQueries = new TextQueries(textProcessingService.getQueryAnalyzer());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Itinerary search index is disabled");
+            return;
+        }
+        try {
+            index = searchIndexManager.open("itineraries", Paths.get(indexPath), textProcessingService.getAnalyzer());
+        } catch (IOException e) {
+            log.error("Could not open itinerary search index, falling back to scanning: {}", e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return index != null;
+    }
+
+    /**
+     * Buffers the itinerary in the index writer; it becomes searchable within
+     * the refresh interval, or on the owner's next search.
+     */
+    public void index(Itinerary itinerary) {
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            index.update(client(itinerary.getUser().getId()), idTerm(itinerary.getId()), toDocument(itinerary));
+        } catch (IOException e) {
+            log.error("Failed to index itinerary {}: {}", itinerary.getId(), e.getMessage());
+        }
+    }
+
+    public void delete(Long userId, Long itineraryId) {
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            index.delete(client(userId), idTerm(itineraryId));
+        } catch (IOException e) {
+            log.error("Failed to remove itinerary {} from index: {}", itineraryId, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the ids of the user's itineraries matching {@code searchTerm},
+     * best BM25 score first.
+     */
+    public List<Long> search(Long userId, String searchTerm) {
+        List<Long> ids = new ArrayList<>();
+        List<String> terms;
+        try {
+            terms = textProcessingService.analyzeText(searchTerm);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to analyze search term", e);
+        }
+        if (terms.isEmpty()) {
+            return ids;
+        }
+
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_USER_ID, String.valueOf(userId))), BooleanClause.Occur.FILTER)
+                .add(textQuery(searchTerm, terms), BooleanClause.Occur.MUST)
+                .build();
+
+        try {
+            return index.search(client(userId), searcher -> readIds(searcher, searcher.search(query, maxResults).scoreDocs));
+        } catch (IOException e) {
+            throw new RuntimeException("Itinerary search failed", e);
+        }
+    }
+
+    /**
+     * Reads itinerary ids for the given hits from doc values, keeping the hit
+     * order. Loading stored fields would decompress a block per hit.
+     */
+    private static List<Long> readIds(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        Long[] ids = new Long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(hits[i].doc, leaves));
+            NumericDocValues values = DocValues.getNumeric(leaf.reader(), FIELD_ID_VALUE);
+            int leafDoc = hits[i].doc - leaf.docBase;
+            if (values.advanceExact(leafDoc)) {
+                ids[i] = values.longValue();
+            } else {
+                // Segments written before ids were stored as doc values
+                ids[i] = Long.parseLong(leaf.reader().storedFields().document(leafDoc).get(FIELD_ID));
+            }
+        }
+        return new ArrayList<>(Arrays.asList(ids));
+    }
+
+    private Query textQuery(String searchTerm, List<String> terms) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().setMinimumNumberShouldMatch(1);
+        for (String field : new String[]{FIELD_DESTINATION, FIELD_FULL_ITINERARY}) {
+            if (terms.size() == 1) {
+                Query exact = textQueries.allTerms(field, searchTerm);
+                if (exact != null) {
+                    builder.add(new BoostQuery(exact, 2f), BooleanClause.Occur.SHOULD);
+                }
+                // The old scan matched substrings of the processed text, so keep
+                // partial words working by also matching on the term prefix.
+                builder.add(new PrefixQuery(new Term(field, terms.get(0))), BooleanClause.Occur.SHOULD);
+            } else {
+                Query phrase = textQueries.phrase(field, searchTerm);
+                if (phrase != null) {
+                    builder.add(phrase, BooleanClause.Occur.SHOULD);
+                }
+            }
+            builder.add(new BoostQuery(TextQueries.fuzzy(field, terms), TextQueries.FUZZY_BOOST), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private Document toDocument(Itinerary itinerary) {
+        return toDocument(itinerary.getId(), itinerary.getUser().getId(), itinerary.getDestination(), itinerary.getFullItinerary());
+    }
+
+    Document toDocument(ItineraryIndexRow row) {
+        return toDocument(row.getId(), row.getUserId(), row.getDestination(), row.getFullItinerary());
+    }
+
+    private static Document toDocument(Long id, Long userId, String destination, String fullItinerary) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(id), Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_ID_VALUE, id));
+        document.add(new StringField(FIELD_USER_ID, String.valueOf(userId), Field.Store.NO));
+        document.add(new TextField(FIELD_DESTINATION, nullToEmpty(destination), Field.Store.NO));
+        document.add(new TextField(FIELD_FULL_ITINERARY, nullToEmpty(fullItinerary), Field.Store.NO));
+        document.add(new StringField(FIELD_CHECK_BUCKET, String.valueOf(checkBucket(id)), Field.Store.NO));
+        document.add(new NumericDocValuesField(FIELD_CHECKSUM, checksum(id, userId, destination, fullItinerary)));
+        return document;
+    }
+
+    /**
+     * CRC32C of everything the document is built from, so the consistency
+     * check can compare the index with the database without storing text.
+     */
+    static long checksum(Long id, Long userId, String destination, String fullItinerary) {
+        CRC32C crc = new CRC32C();
+        for (String value : new String[]{String.valueOf(id), String.valueOf(userId), nullToEmpty(destination), nullToEmpty(fullItinerary)}) {
+            crc.update(value.getBytes(StandardCharsets.UTF_8));
+            // Separator, so ("ab", "c") and ("a", "bc") differ
+            crc.update(0);
+        }
+        return crc.getValue();
+    }
+
+    static int checkBucket(long id) {
+        return (int) Math.floorMod(id, (long) CHECK_BUCKETS);
+    }
+
+    // Lets a user's searches wait for their own latest writes
+    private static String client(Long userId) {
+        return "user:" + userId;
+    }
+
+    LuceneIndex index() {
+        return index;
+    }
+
+    static Term idTerm(Long itineraryId) {
+        return new Term(FIELD_ID, String.valueOf(itineraryId));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,475 @@
+package org.example.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.MMapDirectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * One on-disk Lucene index with a single shared {@link IndexWriter}.
+ * <p>
+ * Writes only touch the writer's in-memory buffer: they are made visible by a
+ * {@link ControlledRealTimeReopenThread} within {@code maxStale}, and made
+ * durable by {@link SearchIndexManager}'s periodic group commit, so callers
+ * never wait on a refresh or an fsync. Because of that, anything written
+ * since the last commit is lost on a crash; the database stays the source of
+ * truth and the index can be rebuilt from it with {@link #rebuild}.
+ * <p>
+ * Writes and searches can name a client (e.g. a user). A search waits, for up
+ * to {@code freshnessTimeout}, until that client's own latest write is
+ * visible, so users always see their own changes while everybody else reads
+ * whatever the reopen thread has published.
+ * <p>
+ * Each rebuild writes a fresh {@code gen-<millis>} directory under the index
+ * path and swaps it in atomically; a generation that never reached its first
+ * commit (e.g. the process died mid-rebuild) is discarded on the next open.
+ */
+@Slf4j
+public class LuceneIndex implements Closeable {
+
+    private static final String GENERATION_PREFIX = "gen-";
+
+    @FunctionalInterface
+    public interface SearchFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    /**
+     * Outcome of {@link #rebuild}: how many documents were written, and the
+     * ids written to the old index while the rebuild ran, which the caller
+     * must index again from the source of truth.
+     */
+    public record RebuildResult(long documents, Set<String> changedDuringRebuild) {
+    }
+
+    private final String name;
+    private final Path basePath;
+    private final Analyzer analyzer;
+    private final Duration maxStale;
+    private final Duration minStale;
+    private final int freshnessTimeoutMillis;
+
+    // Searches and writes hold the read lock; swapping in a rebuilt generation takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Generation current;
+    // Ids written while a rebuild is running, null otherwise
+    private volatile Set<String> changedDuringRebuild;
+
+    // Sequence number of each client's latest write, kept until the reopen thread must have published it
+    private final Cache<String, Long> lastWriteByClient;
+
+    LuceneIndex(String name, Path basePath, Analyzer analyzer,
+                Duration maxStale, Duration minStale, Duration freshnessTimeout) throws IOException {
+        this.name = name;
+        this.basePath = basePath;
+        this.analyzer = analyzer;
+        this.maxStale = maxStale;
+        this.minStale = minStale;
+        this.freshnessTimeoutMillis = (int) freshnessTimeout.toMillis();
+        this.lastWriteByClient = Caffeine.newBuilder()
+                .expireAfterWrite(maxStale.multipliedBy(2).plus(freshnessTimeout))
+                .maximumSize(100_000)
+                .build();
+
+        Files.createDirectories(basePath);
+        Path path = currentGenerationPath();
+        this.current = new Generation(path, IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        log.info("Opened {} search index at {}", name, path.toAbsolutePath());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds or replaces the document identified by {@code id}. Returns the
+     * write's sequence number.
+     */
+    public long update(String client, Term id, Iterable<? extends IndexableField> document) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            recordChange(id);
+            return track(client, current.writer.updateDocument(id, document));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public long delete(String client, Term id) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            recordChange(id);
+            return track(client, current.writer.deleteDocuments(id));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes every document matching {@code term}, e.g. all documents in a
+     * checksum bucket that is about to be reindexed.
+     */
+    public void deleteAll(Term term) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            current.writer.deleteDocuments(term);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code search} against a searcher that includes {@code client}'s
+     * latest write, if it can be published within the freshness timeout.
+     */
+    public <T> T search(String client, SearchFunction<T> search) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            Generation generation = current;
+            Long sequenceNumber = client == null ? null : lastWriteByClient.getIfPresent(client);
+            if (sequenceNumber != null) {
+                try {
+                    if (!generation.reopenThread.waitForGeneration(sequenceNumber, freshnessTimeoutMillis)) {
+                        log.debug("{} index did not publish generation {} within {} ms", name, sequenceNumber, freshnessTimeoutMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            IndexSearcher searcher = generation.searcherManager.acquire();
+            try {
+                return search.apply(searcher);
+            } finally {
+                generation.searcherManager.release(searcher);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public int numDocs() {
+        return current.writer.getDocStats().numDocs;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Commits buffered writes if there are any. Returns whether anything was
+     * committed.
+     */
+    public boolean commit() throws IOException {
+        swapLock.readLock().lock();
+        try {
+            if (!current.writer.hasUncommittedChanges()) {
+                return false;
+            }
+            current.writer.commit();
+            return true;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Commits and publishes everything written so far, for bulk loads that
+     * should be visible and durable as soon as they finish.
+     */
+    public void commitAndRefresh() throws IOException {
+        swapLock.readLock().lock();
+        try {
+            current.writer.commit();
+            current.searcherManager.maybeRefreshBlocking();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a complete new index from {@code rows} in a new directory and
+     * swaps it in. The calling thread reads {@code rows} (so it can be a
+     * cursor bound to the caller's transaction) and hands batches of
+     * {@code batchSize} to {@code threads} workers that convert and add
+     * them; at most {@code threads} batches wait in between, which bounds
+     * heap use no matter how many rows there are. Searches keep using the
+     * old index until the swap.
+     */
+    public <T> RebuildResult rebuild(Stream<T> rows, Function<T, Iterable<? extends IndexableField>> toDocument,
+                                     int batchSize, int threads) throws IOException {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebuild of the " + name + " index is already running");
+        }
+        Path path = basePath.resolve(GENERATION_PREFIX + System.currentTimeMillis());
+        try {
+            changedDuringRebuild = ConcurrentHashMap.newKeySet();
+            long documents = build(path, rows, toDocument, batchSize, threads);
+            Set<String> changed = swapTo(path);
+            log.info("Rebuilt {} search index with {} documents at {}", name, documents, path.toAbsolutePath());
+            return new RebuildResult(documents, changed);
+        } catch (IOException | RuntimeException e) {
+            changedDuringRebuild = null;
+            deleteGeneration(path);
+            throw e;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private <T> long build(Path path, Stream<T> rows, Function<T, Iterable<? extends IndexableField>> toDocument,
+                           int batchSize, int threads) throws IOException {
+        Files.createDirectories(path);
+        AtomicLong documents = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new Thread(runnable, "lucene-rebuild-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue makes the reading thread index the batch itself, which throttles reading
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try (MMapDirectory directory = new MMapDirectory(path);
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                     .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                     .setRAMBufferSizeMB(64)
+                     .setCommitOnClose(false))) {
+            try {
+                List<T> batch = new ArrayList<>(batchSize);
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext() && failure.get() == null) {
+                    batch.add(iterator.next());
+                    if (batch.size() == batchSize) {
+                        submit(workers, writer, batch, toDocument, documents, failure);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    submit(workers, writer, batch, toDocument, documents, failure);
+                }
+            } finally {
+                workers.shutdown();
+                awaitQuietly(workers);
+            }
+            if (failure.get() != null) {
+                throw new IOException("Failed to build " + name + " index", failure.get());
+            }
+            writer.commit();
+        }
+        return documents.get();
+    }
+
+    private static <T> void submit(ThreadPoolExecutor workers, IndexWriter writer, List<T> batch,
+                                   Function<T, Iterable<? extends IndexableField>> toDocument,
+                                   AtomicLong documents, AtomicReference<Throwable> failure) {
+        workers.execute(() -> {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                List<Iterable<? extends IndexableField>> docs = new ArrayList<>(batch.size());
+                for (T row : batch) {
+                    docs.add(toDocument.apply(row));
+                }
+                writer.addDocuments(docs);
+                documents.addAndGet(docs.size());
+            } catch (IOException e) {
+                failure.compareAndSet(null, new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    /**
+     * Opens the rebuilt generation and makes it current. Held sequence
+     * numbers refer to the old writer, so they are dropped; the caller's
+     * replay of changed ids is published with a blocking refresh instead.
+     */
+    private Set<String> swapTo(Path path) throws IOException {
+        Generation next = new Generation(path, IndexWriterConfig.OpenMode.APPEND);
+        Generation previous;
+        Set<String> changed;
+        swapLock.writeLock().lock();
+        try {
+            previous = current;
+            current = next;
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            lastWriteByClient.invalidateAll();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        // Only changes that reached the old index between its last commit and now are lost here, and those are replayed
+        previous.rollbackAndClose();
+        deleteGeneration(previous.path);
+        return changed;
+    }
+
+    private void recordChange(Term id) {
+        Set<String> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(id.text());
+        }
+    }
+
+    private long track(String client, long sequenceNumber) {
+        if (client != null) {
+            lastWriteByClient.asMap().merge(client, sequenceNumber, Math::max);
+        }
+        return sequenceNumber;
+    }
+
+    /**
+     * The newest committed {@code gen-*} directory, or the base path itself
+     * for indexes written before rebuilds existed. Leftover generations are
+     * deleted.
+     */
+    private Path currentGenerationPath() throws IOException {
+        List<Path> generations;
+        try (Stream<Path> children = Files.list(basePath)) {
+            generations = children
+                    .filter(child -> Files.isDirectory(child) && child.getFileName().toString().startsWith(GENERATION_PREFIX))
+                    .sorted(Comparator.comparing((Path child) -> child.getFileName().toString()).reversed())
+                    .toList();
+        }
+        Path chosen = null;
+        for (Path generation : generations) {
+            if (chosen == null && hasCommit(generation)) {
+                chosen = generation;
+            } else {
+                deleteGeneration(generation);
+            }
+        }
+        if (chosen != null && hasCommit(basePath)) {
+            deleteGeneration(basePath);
+        }
+        return chosen != null ? chosen : basePath;
+    }
+
+    private static boolean hasCommit(Path path) throws IOException {
+        try (MMapDirectory directory = new MMapDirectory(path)) {
+            return DirectoryReader.indexExists(directory);
+        }
+    }
+
+    /**
+     * Deletes an index generation. For the base path only the index files
+     * are removed, never the generation directories below it.
+     */
+    private void deleteGeneration(Path path) {
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.toList()) {
+                if (Files.isRegularFile(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            if (!path.equals(basePath)) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete old {} index files at {}: {}", name, path, e.getMessage());
+        }
+    }
+
+    private static void awaitQuietly(ThreadPoolExecutor workers) {
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        current.close();
+    }
+
+    private final class Generation implements Closeable {
+        private final Path path;
+        private final MMapDirectory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+        private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+        Generation(Path path, IndexWriterConfig.OpenMode openMode) throws IOException {
+            this.path = path;
+            Files.createDirectories(path);
+            this.directory = new MMapDirectory(path);
+            IndexWriter indexWriter = null;
+            try {
+                indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(openMode));
+                this.searcherManager = new SearcherManager(indexWriter, null);
+            } catch (IOException e) {
+                if (indexWriter != null) {
+                    indexWriter.close();
+                }
+                directory.close();
+                throw e;
+            }
+            this.writer = indexWriter;
+            this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+                    maxStale.toNanos() / 1e9, minStale.toNanos() / 1e9);
+            reopenThread.setName("lucene-reopen-" + name);
+            reopenThread.setDaemon(true);
+            reopenThread.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reopenThread.close();
+                searcherManager.close();
+                // IndexWriter commits pending changes on close by default
+                writer.close();
+            } finally {
+                directory.close();
+            }
+        }
+
+        void rollbackAndClose() {
+            try {
+                reopenThread.close();
+                searcherManager.close();
+                writer.rollback();
+                directory.close();
+            } catch (IOException e) {
+                log.warn("Error while closing replaced {} index: {}", name, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package org.example.service.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.DrillDownQuery;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.example.model.entity.Review;
+import org.example.model.projection.ReviewIndexRow;
+import org.example.repository.ReviewRepository;
+import org.example.service.DestinationRatingService;
+import org.example.service.TextProcessingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * On-disk Lucene index over reviews, analyzed with the
+ * {@link TextProcessingService} chain. Queries support quoted phrases,
+ * trailing-{@code *} prefixes and plain terms (all of which must match), can
+ * be narrowed to one destination, and return destination facet counts for
+ * every match alongside the top hits. Phrases and words also match their
+ * synonyms, and words match misspellings at a lower score.
+ */
+@Slf4j
+@Service
+public class ReviewIndexService {
+
+    static final String FIELD_ID = "id";
+    static final String FIELD_ID_VALUE = "idValue";
+    static final String FIELD_TITLE = "title";
+    static final String FIELD_COMMENT = "comment";
+    static final String FIELD_DESTINATION = "destination";
+    static final String DIM_DESTINATION = "destinationFacet";
+
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            FIELD_TITLE, 2f,
+            FIELD_DESTINATION, 1.5f,
+            FIELD_COMMENT, 1f);
+
+    // A quoted phrase or a bare word
+    private static final Pattern QUERY_PART = Pattern.compile("\"([^\"]*)\"?|(\\S+)");
+
+    private final TextProcessingService textProcessingService;
+    private final ReviewRepository reviewRepository;
+    private final SearchIndexManager searchIndexManager;
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final TextQueries textQueries;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.reviews.path:data/index/reviews}")
+    private String indexPath;
+
+    @Value("${search.index.max-results:100}")
+    private int maxResults;
+
+    @Value("${search.index.reviews.max-facets:20}")
+    private int maxFacets;
+
+    @Value("${search.index.rebuild.batch-size:500}")
+    private int batchSize;
+
+    private LuceneIndex index;
+
+    // Facet ordinals for the current reader; rebuilt only after the index changes
+    private volatile FacetState facetState;
+
+    public ReviewIndexService(TextProcessingService textProcessingService,
+                              ReviewRepository reviewRepository,
+                              SearchIndexManager searchIndexManager,
+                              PlatformTransactionManager transactionManager) {
+        this.textProcessingService = textProcessingService;
+        this.reviewRepository = reviewRepository;
+        this.searchIndexManager = searchIndexManager;
+        this.textQueries = new TextQueries(textProcessingService.getQueryAnalyzer());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Ids of the top matches, best first, with the total number of matches
+     * and how many fall in each destination.
+     */
+    public record SearchHits(List<Long> ids, long totalHits, Map<String, Integer> destinations) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Review search index is disabled");
+            return;
+        }
+        try {
+            index = searchIndexManager.open("reviews", Paths.get(indexPath), textProcessingService.getAnalyzer());
+        } catch (IOException e) {
+            log.error("Could not open review search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fills an empty index from the database, streaming rows through
+     * {@link LuceneIndex#rebuild} so heap use does not grow with the number
+     * of reviews. Reviews submitted meanwhile are indexed again afterwards.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexExistingReviews() {
+        if (!isAvailable() || index.numDocs() > 0 || reviewRepository.count() == 0) {
+            return;
+        }
+        try {
+            LuceneIndex.RebuildResult rebuilt = readOnlyTransaction.execute(status -> {
+                try (Stream<ReviewIndexRow> rows = reviewRepository.streamIndexRows()) {
+                    return index.rebuild(rows, this::toDocument, batchSize, Runtime.getRuntime().availableProcessors());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            reindex(rebuilt.changedDuringRebuild());
+            log.info("Indexed {} existing reviews", rebuilt.documents());
+        } catch (RuntimeException | IOException e) {
+            log.error("Failed to index existing reviews: {}", e.getMessage());
+        }
+    }
+
+    private void reindex(Set<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> pending = ids.stream().map(Long::valueOf).toList();
+        for (Review review : reviewRepository.findAllById(pending)) {
+            index.update(null, idTerm(review.getId()), toDocument(review));
+        }
+        index.commitAndRefresh();
+    }
+
+    public boolean isAvailable() {
+        return index != null;
+    }
+
+    /**
+     * Buffers the review in the index writer; it becomes searchable within
+     * the refresh interval, or on its author's next search.
+     */
+    public void index(Review review) {
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            index.update(review.getReviewerName(), idTerm(review.getId()), toDocument(review));
+        } catch (IOException e) {
+            log.error("Failed to index review {}: {}", review.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Searches titles, comments and destinations. A blank {@code queryText}
+     * matches every review, so a destination alone lists its reviews.
+     * {@code userName}'s own latest review is always included if it matches.
+     */
+    public SearchHits search(String queryText, String destination, int limit, String userName) {
+        Query query = parse(queryText);
+        if (query == null) {
+            return new SearchHits(List.of(), 0, Map.of());
+        }
+        String destinationKey = DestinationRatingService.normalize(destination);
+        if (destinationKey != null) {
+            DrillDownQuery drillDown = new DrillDownQuery(facetsConfig, query);
+            drillDown.add(DIM_DESTINATION, destinationKey);
+            query = drillDown;
+        }
+        int topK = Math.max(1, Math.min(limit, maxResults));
+
+        Query finalQuery = query;
+        try {
+            return index.search(userName, searcher -> {
+                FacetsCollector facetsCollector = new FacetsCollector();
+                TopDocs topDocs = FacetsCollector.search(searcher, finalQuery, topK, facetsCollector);
+                return new SearchHits(readIds(searcher, topDocs.scoreDocs), topDocs.totalHits.value,
+                        destinationCounts(searcher.getIndexReader(), facetsCollector));
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Review search failed", e);
+        }
+    }
+
+    /**
+     * Every quoted phrase, {@code prefix*} and bare word becomes a required
+     * clause that may match in any field. Returns null when nothing in the
+     * query survives analysis.
+     */
+    private Query parse(String queryText) {
+        if (queryText == null || queryText.isBlank()) {
+            return new MatchAllDocsQuery();
+        }
+        List<Query> clauses = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        Matcher matcher = QUERY_PART.matcher(queryText);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                clauses.add(phraseClause(matcher.group(1)));
+            } else if (matcher.group(2).endsWith("*")) {
+                clauses.add(prefixClause(analyze(matcher.group(2).substring(0, matcher.group(2).length() - 1))));
+            } else {
+                words.add(matcher.group(2));
+            }
+        }
+        clauses.add(wordsClause(words));
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        int added = 0;
+        for (Query clause : clauses) {
+            if (clause != null) {
+                query.add(clause, BooleanClause.Occur.MUST);
+                added++;
+            }
+        }
+        return added == 0 ? null : query.build();
+    }
+
+    /**
+     * Every bare word must match, each in any field. The words are also
+     * analyzed together, so a multi-word synonym such as "new york" for
+     * "nyc" is recognized; that alternative needs all of them in one field.
+     */
+    private Query wordsClause(List<String> words) {
+        if (words.isEmpty()) {
+            return null;
+        }
+        if (words.size() == 1) {
+            return termClause(words.get(0));
+        }
+        BooleanQuery.Builder eachWord = new BooleanQuery.Builder();
+        int clauses = 0;
+        for (String word : words) {
+            Query clause = termClause(word);
+            if (clause != null) {
+                eachWord.add(clause, BooleanClause.Occur.MUST);
+                clauses++;
+            }
+        }
+        if (clauses == 0) {
+            return null;
+        }
+        String text = String.join(" ", words);
+        BooleanQuery.Builder alternatives = new BooleanQuery.Builder().add(eachWord.build(), BooleanClause.Occur.SHOULD);
+        FIELD_BOOSTS.forEach((field, boost) -> {
+            Query together = textQueries.allTerms(field, text);
+            if (together != null) {
+                alternatives.add(new BoostQuery(together, boost), BooleanClause.Occur.SHOULD);
+            }
+        });
+        return alternatives.build();
+    }
+
+    private Query phraseClause(String phrase) {
+        List<String> terms = analyze(phrase);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        if (terms.size() == 1) {
+            return termClause(phrase);
+        }
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+        FIELD_BOOSTS.forEach((field, boost) -> anyField.add(
+                new BoostQuery(textQueries.phrase(field, phrase), boost), BooleanClause.Occur.SHOULD));
+        return anyField.build();
+    }
+
+    private Query prefixClause(List<String> terms) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+        String prefix = terms.get(terms.size() - 1);
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+        FIELD_BOOSTS.forEach((field, boost) -> anyField.add(
+                new BoostQuery(new PrefixQuery(new Term(field, prefix)), boost), BooleanClause.Occur.SHOULD));
+        return anyField.build();
+    }
+
+    /**
+     * A bare word can analyze to several terms (e.g. "day-trip"); all of them
+     * must match in one field, exactly, through a synonym, or within a few
+     * edits.
+     */
+    private Query termClause(String word) {
+        List<String> terms = analyze(word);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+        FIELD_BOOSTS.forEach((field, boost) -> {
+            anyField.add(new BoostQuery(textQueries.allTerms(field, word), boost), BooleanClause.Occur.SHOULD);
+            anyField.add(new BoostQuery(TextQueries.fuzzy(field, terms), boost * TextQueries.FUZZY_BOOST),
+                    BooleanClause.Occur.SHOULD);
+        });
+        return anyField.build();
+    }
+
+    private List<String> analyze(String text) {
+        try {
+            return textProcessingService.analyzeText(text);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to analyze search term", e);
+        }
+    }
+
+    private Map<String, Integer> destinationCounts(IndexReader reader, FacetsCollector facetsCollector) throws IOException {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        SortedSetDocValuesReaderState state = facetState(reader);
+        if (state == null) {
+            return counts;
+        }
+        FacetResult result = new SortedSetDocValuesFacetCounts(state, facetsCollector)
+                .getTopChildren(maxFacets, DIM_DESTINATION);
+        if (result != null) {
+            for (LabelAndValue labelAndValue : result.labelValues) {
+                counts.put(labelAndValue.label, labelAndValue.value.intValue());
+            }
+        }
+        return counts;
+    }
+
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if (current != null && current.reader() == reader) {
+            return current.state();
+        }
+        if (reader.numDocs() == 0) {
+            return null;
+        }
+        SortedSetDocValuesReaderState state;
+        try {
+            state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        } catch (IllegalArgumentException e) {
+            // No indexed review has a destination yet
+            return null;
+        }
+        facetState = new FacetState(reader, state);
+        return state;
+    }
+
+    /**
+     * Reads review ids for the given hits from doc values, keeping the hit
+     * order.
+     */
+    private static List<Long> readIds(IndexSearcher searcher, ScoreDoc[] hits) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        List<Long> ids = new ArrayList<>(hits.length);
+        for (ScoreDoc hit : hits) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+            NumericDocValues values = DocValues.getNumeric(leaf.reader(), FIELD_ID_VALUE);
+            if (values.advanceExact(hit.doc - leaf.docBase)) {
+                ids.add(values.longValue());
+            }
+        }
+        return ids;
+    }
+
+    private Document toDocument(Review review) throws IOException {
+        return toDocument(review.getId(), review.getTitle(), review.getComment(), review.getDestination());
+    }
+
+    private Document toDocument(ReviewIndexRow row) {
+        try {
+            return toDocument(row.getId(), row.getTitle(), row.getComment(), row.getDestination());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Document toDocument(Long id, String title, String comment, String destination) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(id), Field.Store.YES));
+        document.add(new NumericDocValuesField(FIELD_ID_VALUE, id));
+        document.add(new TextField(FIELD_TITLE, nullToEmpty(title), Field.Store.NO));
+        document.add(new TextField(FIELD_COMMENT, nullToEmpty(comment), Field.Store.NO));
+        document.add(new TextField(FIELD_DESTINATION, nullToEmpty(destination), Field.Store.NO));
+        String destinationKey = DestinationRatingService.normalize(destination);
+        if (destinationKey != null) {
+            document.add(new SortedSetDocValuesFacetField(DIM_DESTINATION, destinationKey));
+        }
+        return facetsConfig.build(document);
+    }
+
+    private static Term idTerm(Long reviewId) {
+        return new Term(FIELD_ID, String.valueOf(reviewId));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+}
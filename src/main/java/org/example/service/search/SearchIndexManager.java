@@ -0,0 +1,66 @@
+package org.example.service.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Opens the application's {@link LuceneIndex}es with shared refresh settings,
+ * group-commits them every {@code search.index.commit-interval-ms} and closes
+ * them on shutdown.
+ */
+@Slf4j
+@Component
+public class SearchIndexManager {
+
+    private final List<LuceneIndex> indexes = new CopyOnWriteArrayList<>();
+
+    @Value("${search.index.refresh.max-stale:PT1S}")
+    private Duration maxStale;
+
+    @Value("${search.index.refresh.min-stale:PT0.025S}")
+    private Duration minStale;
+
+    @Value("${search.index.refresh.freshness-timeout:PT1S}")
+    private Duration freshnessTimeout;
+
+    public LuceneIndex open(String name, Path path, Analyzer analyzer) throws IOException {
+        LuceneIndex index = new LuceneIndex(name, path, analyzer, maxStale, minStale, freshnessTimeout);
+        indexes.add(index);
+        return index;
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.commit-interval-ms:5000}")
+    public void commitAll() {
+        for (LuceneIndex index : indexes) {
+            try {
+                if (index.commit()) {
+                    log.debug("Committed {} search index", index.getName());
+                }
+            } catch (IOException e) {
+                log.error("Failed to commit {} search index: {}", index.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (LuceneIndex index : indexes) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                log.warn("Error while closing {} search index: {}", index.getName(), e.getMessage());
+            }
+        }
+        indexes.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.service.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.QueryBuilder;
+
+import java.util.List;
+
+/**
+ * Typo- and synonym-tolerant text clauses shared by the search indexes.
+ * Exact clauses are built from the synonym-expanding query analyzer, whose
+ * token graph {@link QueryBuilder} turns into alternatives ("nyc" or the
+ * phrase "new york"). Fuzzy clauses intersect a Levenshtein automaton with
+ * the field's term dictionary, so neither walks documents.
+ */
+final class TextQueries {
+
+    // Fuzzy matches rank below exact and synonym matches
+    static final float FUZZY_BOOST = 0.5f;
+    // Typos in the first character are rare, and a fixed prefix keeps the automaton walk small
+    private static final int FUZZY_PREFIX_LENGTH = 1;
+
+    private final QueryBuilder queryBuilder;
+
+    TextQueries(Analyzer queryAnalyzer) {
+        this.queryBuilder = new QueryBuilder(queryAnalyzer);
+        // "nyc" expands to the phrase "new york", not to "new" and "york" anywhere
+        this.queryBuilder.setAutoGenerateMultiTermSynonymsPhraseQuery(true);
+    }
+
+    /**
+     * Every word of {@code text} (or one of its synonyms) must appear in the
+     * field. Null when nothing survives analysis.
+     */
+    Query allTerms(String field, String text) {
+        return queryBuilder.createBooleanQuery(field, text, BooleanClause.Occur.MUST);
+    }
+
+    /**
+     * {@code text} as a phrase, with synonyms as alternative phrases. Null
+     * when nothing survives analysis.
+     */
+    Query phrase(String field, String text) {
+        return queryBuilder.createPhraseQuery(field, text);
+    }
+
+    /**
+     * Every analyzed term must match within {@link #maxEdits} edits.
+     */
+    static Query fuzzy(String field, List<String> terms) {
+        if (terms.size() == 1) {
+            return fuzzy(field, terms.get(0));
+        }
+        BooleanQuery.Builder allTerms = new BooleanQuery.Builder();
+        for (String term : terms) {
+            allTerms.add(fuzzy(field, term), BooleanClause.Occur.MUST);
+        }
+        return allTerms.build();
+    }
+
+    static Query fuzzy(String field, String term) {
+        int maxEdits = maxEdits(term);
+        if (maxEdits == 0) {
+            return new TermQuery(new Term(field, term));
+        }
+        return new FuzzyQuery(new Term(field, term), maxEdits, FUZZY_PREFIX_LENGTH);
+    }
+
+    // Short terms are too close to too many others to allow typos
+    static int maxEdits(String term) {
+        int length = term.codePointCount(0, term.length());
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+}
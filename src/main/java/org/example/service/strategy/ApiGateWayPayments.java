@@ -1,9 +1,11 @@
 package org.example.service.strategy;
 
-import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.PaymentRequest;
 import org.example.dto.PaymentResponse;
@@ -11,25 +13,47 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.Set;
 
 @Slf4j
 @Component
 public class ApiGateWayPayments implements IPaymentStrategy {
 
+    // Intents may need customer action and are settled by webhook; Stripe prices in any currency we send
+    private static final PaymentCapabilities CAPABILITIES = new PaymentCapabilities(true, false, Set.of());
+
     @Value("${stripe.api.secret-key}")
     private String stripeSecretKey;
 
+    private final StripeGateway stripeGateway;
+
+    public ApiGateWayPayments(StripeGateway stripeGateway) {
+        this.stripeGateway = stripeGateway;
+    }
+
+    @Override
+    public String getType() {
+        return "gateway";
+    }
+
+    @Override
+    public PaymentCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
     @Override
     public PaymentResponse processPayment(PaymentRequest paymentRequest) {
+        return processPayment(paymentRequest, null);
+    }
+
+    @Override
+    public PaymentResponse processPayment(PaymentRequest paymentRequest, String idempotencyKey) {
         try {
-            log.info("Stripe secret key loaded: {}", stripeSecretKey != null ? "****" + stripeSecretKey.substring(stripeSecretKey.length() - 4) : "NULL");
             if (stripeSecretKey == null || stripeSecretKey.trim().isEmpty()) {
                 log.error("Stripe secret key is null or empty");
                 return PaymentResponse.failed("Stripe API key not configured");
             }
 
-            Stripe.apiKey = stripeSecretKey;
-
             long amountInCents = paymentRequest.getAmount().multiply(new BigDecimal("100")).longValue();
 
             PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
@@ -42,7 +66,13 @@ public class ApiGateWayPayments implements IPaymentStrategy {
                     .setReturnUrl("https://website/return")
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            RequestOptions.RequestOptionsBuilder options = RequestOptions.builder();
+            if (idempotencyKey != null) {
+                // Stripe replays its stored result for a repeated key instead of charging again
+                options.setIdempotencyKey(idempotencyKey);
+            }
+
+            PaymentIntent paymentIntent = stripeGateway.createPaymentIntent(params, options.build());
 
             log.info("Payment processed successfully. Payment Intent ID: {}", paymentIntent.getId());
 
@@ -57,6 +87,10 @@ public class ApiGateWayPayments implements IPaymentStrategy {
                     .success("succeeded".equals(paymentIntent.getStatus()) || "requires_action".equals(paymentIntent.getStatus()))
                     .build();
 
+        } catch (BulkheadFullException | CallNotPermittedException e) {
+            // Nothing reached Stripe, so the same Idempotency-Key can be retried later
+            log.warn("Stripe call not attempted: {}", e.getMessage());
+            return PaymentResponse.failed("Payment provider is temporarily unavailable, please retry shortly");
         } catch (StripeException e) {
             log.error("Stripe payment failed: {}", e.getMessage());
             return PaymentResponse.failed("Payment failed: " + e.getUserMessage());
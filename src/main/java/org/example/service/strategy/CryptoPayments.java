@@ -5,10 +5,24 @@ import org.example.dto.PaymentRequest;
 import org.example.dto.PaymentResponse;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 @Slf4j
 @Component
 public class CryptoPayments implements IPaymentStrategy {
 
+    private static final PaymentCapabilities CAPABILITIES = new PaymentCapabilities(false, false, Set.of());
+
+    @Override
+    public String getType() {
+        return "crypto";
+    }
+
+    @Override
+    public PaymentCapabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
     @Override
     public PaymentResponse processPayment(PaymentRequest paymentRequest) {
         log.info("Crypto payment processing not yet implemented for amount: {}", paymentRequest.getAmount());
@@ -5,5 +5,20 @@ import org.example.dto.PaymentResponse;
 
 public interface IPaymentStrategy {
 
+    /**
+     * The {@code paymentType} value of requests this strategy handles.
+     */
+    String getType();
+
+    PaymentCapabilities getCapabilities();
+
     PaymentResponse processPayment(PaymentRequest paymentRequest);
+
+    /**
+     * Processes the payment, passing {@code idempotencyKey} on to the provider
+     * when it supports one. Providers without idempotency support ignore it.
+     */
+    default PaymentResponse processPayment(PaymentRequest paymentRequest, String idempotencyKey) {
+        return processPayment(paymentRequest);
+    }
 }
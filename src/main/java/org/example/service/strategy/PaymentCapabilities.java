@@ -0,0 +1,23 @@
+package org.example.service.strategy;
+
+import java.util.Set;
+
+/**
+ * What a payment strategy can do, declared by the strategy itself so callers
+ * can choose a code path without knowing the concrete provider.
+ *
+ * @param async      payments may complete after the call returns (webhooks,
+ *                   customer actions), so the initial status is not final
+ * @param batch      the provider accepts several payments in one call
+ * @param currencies lower-case ISO currency codes accepted; empty means any
+ */
+public record PaymentCapabilities(boolean async, boolean batch, Set<String> currencies) {
+
+    public PaymentCapabilities {
+        currencies = Set.copyOf(currencies);
+    }
+
+    public boolean supportsCurrency(String currency) {
+        return currencies.isEmpty() || (currency != null && currencies.contains(currency.toLowerCase()));
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.service.strategy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves a request's payment type to its strategy. Every
+ * {@link IPaymentStrategy} bean is registered under its {@link IPaymentStrategy#getType()};
+ * the map is built once at startup and never changes, so a new provider only
+ * needs a new bean.
+ */
+@Slf4j
+@Component
+public class PaymentStrategyRegistry {
+
+    private final Map<String, IPaymentStrategy> strategies;
+
+    public PaymentStrategyRegistry(List<IPaymentStrategy> strategies) {
+        Map<String, IPaymentStrategy> byType = new HashMap<>();
+        for (IPaymentStrategy strategy : strategies) {
+            IPaymentStrategy previous = byType.putIfAbsent(strategy.getType(), strategy);
+            if (previous != null) {
+                throw new IllegalStateException("Payment type '" + strategy.getType() + "' is provided by both "
+                        + previous.getClass().getSimpleName() + " and " + strategy.getClass().getSimpleName());
+            }
+        }
+        this.strategies = Map.copyOf(byType);
+        log.info("Registered payment types {}", this.strategies.keySet());
+    }
+
+    /**
+     * Returns the strategy for {@code type}, or null if no strategy handles it.
+     */
+    public IPaymentStrategy get(String type) {
+        return type == null ? null : strategies.get(type);
+    }
+
+    public Map<String, PaymentCapabilities> capabilities() {
+        Map<String, PaymentCapabilities> capabilities = new HashMap<>();
+        strategies.forEach((type, strategy) -> capabilities.put(type, strategy.getCapabilities()));
+        return capabilities;
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.service.strategy;
+
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * All outbound calls to Stripe go through here. The gateway owns its own
+ * {@link StripeClient} (no global {@code Stripe.apiKey}) with bounded
+ * connect/read timeouts, and wraps every call in
+ * <ul>
+ *   <li>a semaphore bulkhead, so at most {@code stripe.bulkhead.max-concurrent-calls}
+ *   request threads can be tied up waiting on Stripe and the rest fail fast;</li>
+ *   <li>a circuit breaker that opens when too many calls fail or are slow,
+ *   so a degraded provider is not hammered and callers get an immediate
+ *   answer;</li>
+ *   <li>a {@code payments.stripe.requests} timer with a latency histogram.</li>
+ * </ul>
+ * Card and validation errors are the customer's, not the provider's, and do
+ * not count towards opening the circuit.
+ */
+@Slf4j
+@Component
+public class StripeGateway {
+
+    private static final String NAME = "stripe";
+
+    private final StripeClient stripeClient;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    public StripeGateway(MeterRegistry meterRegistry,
+                         @Value("${stripe.api.secret-key}") String secretKey,
+                         @Value("${stripe.api.base:https://api.stripe.com}") String apiBase,
+                         @Value("${stripe.connect-timeout:PT2S}") Duration connectTimeout,
+                         @Value("${stripe.read-timeout:PT10S}") Duration readTimeout,
+                         @Value("${stripe.max-network-retries:1}") int maxNetworkRetries,
+                         @Value("${stripe.bulkhead.max-concurrent-calls:10}") int maxConcurrentCalls,
+                         @Value("${stripe.bulkhead.max-wait:PT0.2S}") Duration maxWait,
+                         @Value("${stripe.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                         @Value("${stripe.circuit-breaker.slow-call-threshold:PT5S}") Duration slowCallThreshold,
+                         @Value("${stripe.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                         @Value("${stripe.circuit-breaker.open-duration:PT30S}") Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.stripeClient = StripeClient.builder()
+                .setApiKey(secretKey)
+                .setApiBase(apiBase)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setReadTimeout((int) readTimeout.toMillis())
+                // Retries reuse the request's idempotency key, so they cannot double-charge
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
+
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        this.bulkhead = bulkheads.bulkhead(NAME);
+
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.min(10, slidingWindowSize))
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(StripeGateway::isProviderFailure)
+                .build());
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+        this.circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("Stripe circuit breaker: {}", event.getStateTransition()));
+
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    }
+
+    /**
+     * Creates a PaymentIntent. Throws {@link BulkheadFullException} when too
+     * many Stripe calls are already in progress and
+     * {@link CallNotPermittedException} while the circuit is open.
+     */
+    public PaymentIntent createPaymentIntent(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            PaymentIntent paymentIntent = bulkhead.executeCheckedSupplier(
+                    () -> circuitBreaker.executeCheckedSupplier(
+                            () -> stripeClient.paymentIntents().create(params, options)));
+            outcome = "success";
+            return paymentIntent;
+        } catch (BulkheadFullException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (CallNotPermittedException e) {
+            outcome = "circuit_open";
+            throw e;
+        } catch (StripeException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            sample.stop(Timer.builder("payments.stripe.requests")
+                    .description("Latency of outbound Stripe API calls")
+                    .tag("operation", "payment_intents.create")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Connection problems, rate limiting and Stripe-side errors mean the
+     * provider is struggling; card declines and invalid requests do not.
+     */
+    private static boolean isProviderFailure(Throwable e) {
+        return e instanceof ApiConnectionException
+                || e instanceof RateLimitException
+                || e instanceof ApiException
+                || e instanceof RuntimeException;
+    }
+}
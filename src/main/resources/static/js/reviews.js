@@ -1,7 +1,11 @@
 const REVIEW_API = 'https://trip-advisor-3.onrender.com/api/review';
+const REVIEW_PAGE_SIZE = 20;
 
 const reviews = {
-    async loadReviews() {
+    // Cursor of the next page, null once every review has been loaded
+    nextCursor: null,
+
+    async loadReviews(append = false) {
         try {
             console.log('Loading reviews...');
             const currentUser = auth?.getCurrentUser();
@@ -11,7 +15,10 @@ const reviews = {
                 throw new Error('No authentication token found');
             }
 
-            const response = await auth.request(REVIEW_API, {
+            let url = `${REVIEW_API}/page?size=${REVIEW_PAGE_SIZE}`;
+            if (append && this.nextCursor) url += `&cursor=${encodeURIComponent(this.nextCursor)}`;
+
+            const response = await auth.request(url, {
                 method: 'GET',
                 headers: {
                     'Authorization': `Bearer ${token}`,
@@ -26,7 +33,9 @@ const reviews = {
             }
 
             const data = await response.json();
-            this.displayReviews(data.data);
+            const page = data.data || {};
+            this.nextCursor = page.hasMore ? page.nextCursor : null;
+            this.displayReviews(page.items, append);
         } catch (error) {
             console.error('Error loading reviews:', error);
             this.displayError(`Failed to load reviews: ${error.message}`);
@@ -72,11 +81,11 @@ const reviews = {
         }
     },
 
-    displayReviews(reviewsData) {
+    displayReviews(reviewsData, append = false) {
         const reviewsList = document.getElementById('reviewsList');
         if (!reviewsList) return;
 
-        if (!reviewsData || reviewsData.length === 0) {
+        if (!append && (!reviewsData || reviewsData.length === 0)) {
             reviewsList.innerHTML = `
                 <div class="text-center py-5">
                     <i class="fas fa-star fa-3x text-muted mb-3"></i>
@@ -117,7 +126,21 @@ const reviews = {
             </div>
         `).join('');
 
-        reviewsList.innerHTML = reviewsHTML;
+        document.getElementById('loadMoreReviews')?.remove();
+        if (append) {
+            reviewsList.insertAdjacentHTML('beforeend', reviewsHTML);
+        } else {
+            reviewsList.innerHTML = reviewsHTML;
+        }
+        if (this.nextCursor) {
+            reviewsList.insertAdjacentHTML('beforeend', `
+                <div id="loadMoreReviews" class="text-center my-3">
+                    <button class="btn btn-outline-primary" onclick="reviews.loadReviews(true)">
+                        <i class="fas fa-chevron-down me-1"></i>Load more reviews
+                    </button>
+                </div>
+            `);
+        }
     },
 
     displayError(message) {
@@ -257,15 +257,21 @@ window.paymentHandler = paymentHandler;
 // REVIEW MODULE
 // ==============================
 const REVIEW_API = '/api/review';
+const REVIEW_PAGE_SIZE = 20;
 
 const reviews = {
-    async loadReviews(){
+    nextCursor: null,
+    async loadReviews(append=false){
         try{
             const user=auth.getCurrentUser(), token=auth.getToken();
             if(!token) throw new Error('Authentication required');
-            const res=await auth.request(REVIEW_API,{method:'GET',headers:{'Authorization':`Bearer ${token}`,'username':user.userName}});
+            let url=`${REVIEW_API}/page?size=${REVIEW_PAGE_SIZE}`;
+            if(append&&this.nextCursor) url+=`&cursor=${encodeURIComponent(this.nextCursor)}`;
+            const res=await auth.request(url,{method:'GET',headers:{'Authorization':`Bearer ${token}`,'username':user.userName}});
             if(!res.ok) throw new Error(`Failed to load reviews: ${res.status}`);
-            const data=await res.json(); this.displayReviews(data.data);
+            const page=(await res.json()).data||{};
+            this.nextCursor=page.hasMore?page.nextCursor:null;
+            this.displayReviews(page.items, append);
         }catch(e){console.error(e); this.displayError(e.message);}
     },
     async submitReview(reviewData){
@@ -280,11 +286,14 @@ const reviews = {
             this.loadReviews(); return data;
         }catch(e){console.error(e); throw e;}
     },
-    displayReviews(reviewsData){
+    displayReviews(reviewsData, append=false){
         const list=document.getElementById('reviewsList');
         if(!list)return;
-        if(!reviewsData||reviewsData.length===0){list.innerHTML=`<div class="text-center py-5"><h5>No reviews yet</h5></div>`; return;}
-        list.innerHTML=reviewsData.map(r=>`<div class="card review-card"><h5>${r.title||'Review'}</h5><p>${r.comment||r.review||''}</p><small>${r.reviewerName||r.userName||'Anonymous'} | ${this.formatDate(r.createdAt||r.date)}</small></div>`).join('');
+        if(!append&&(!reviewsData||reviewsData.length===0)){list.innerHTML=`<div class="text-center py-5"><h5>No reviews yet</h5></div>`; return;}
+        const html=(reviewsData||[]).map(r=>`<div class="card review-card"><h5>${r.title||'Review'}</h5><p>${r.comment||r.review||''}</p><small>${r.reviewerName||r.userName||'Anonymous'} | ${this.formatDate(r.createdAt||r.date)}</small></div>`).join('');
+        document.getElementById('loadMoreReviews')?.remove();
+        if(append) list.insertAdjacentHTML('beforeend',html); else list.innerHTML=html;
+        if(this.nextCursor) list.insertAdjacentHTML('beforeend',`<div id="loadMoreReviews" class="text-center my-3"><button class="btn btn-outline-primary" onclick="reviews.loadReviews(true)">Load more reviews</button></div>`);
     },
     displayError(msg){const list=document.getElementById('reviewsList'); if(list) list.innerHTML=`<div class="alert alert-danger">${msg}</div>`;},
     showSuccess(msg){const a=document.createElement('div'); a.className='alert alert-success alert-dismissible fade show position-fixed'; a.style.cssText='top:20px;right:20px;z-index:1055;min-width:300px'; a.innerHTML=`${msg}<button type="button" class="btn-close" data-bs-dismiss="alert"></button>`; document.body.appendChild(a); setTimeout(()=>a.parentNode&&a.remove(),3000);},
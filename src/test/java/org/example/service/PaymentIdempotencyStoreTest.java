@@ -0,0 +1,169 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.dto.PaymentRequest;
+import org.example.model.entity.Payment;
+import org.example.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentIdempotencyStoreTest {
+
+    private static final Long USER_ID = 7L;
+    private static final String KEY = "order-42";
+
+    private PaymentRepository paymentRepository;
+    private PaymentIdempotencyStore store;
+    private AtomicInteger charges;
+    // Payments "saved" by charge(), as the payments table would hold them
+    private Map<String, Payment> rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = new ConcurrentHashMap<>();
+        paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.findByUserIdAndIdempotencyKey(anyLong(), anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.getArgument(0) + ":" + invocation.getArgument(1))));
+        store = new PaymentIdempotencyStore(paymentRepository, new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+        charges = new AtomicInteger();
+    }
+
+    @Test
+    void repeatedKeyReplaysStoredPaymentWithoutChargingAgain() {
+        Payment first = store.execute(USER_ID, KEY, request("25.00"), this::charge);
+        Payment second = store.execute(USER_ID, KEY, request("25.0"), this::charge);
+
+        assertThat(second).isSameAs(first);
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void replaysPaymentFoundInDatabaseAfterCacheMiss() {
+        Payment stored = store.execute(USER_ID, KEY, request("25.00"), this::charge);
+        when(paymentRepository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(stored));
+        PaymentIdempotencyStore restarted = new PaymentIdempotencyStore(paymentRepository, new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+
+        Payment replayed = restarted.execute(USER_ID, KEY, request("25.00"), this::charge);
+
+        assertThat(replayed).isSameAs(stored);
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void evictedKeyReplaysTheCurrentRow() {
+        store.execute(USER_ID, KEY, request("25.00"), this::charge);
+        store.execute(USER_ID, KEY, request("25.00"), this::charge);
+        Payment updated = Payment.builder().id(1L).userId(USER_ID).idempotencyKey(KEY)
+                .requestFingerprint(rows.get(USER_ID + ":" + KEY).getRequestFingerprint())
+                .status("requires_payment_method").success(false).build();
+        rows.put(USER_ID + ":" + KEY, updated);
+
+        store.evict(USER_ID, KEY);
+
+        assertThat(store.execute(USER_ID, KEY, request("25.00"), this::charge)).isSameAs(updated);
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForDifferentRequestIsRejected() {
+        store.execute(USER_ID, KEY, request("25.00"), this::charge);
+
+        assertThatThrownBy(() -> store.execute(USER_ID, KEY, request("30.00"), this::charge))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("different payment request");
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        store.execute(USER_ID, KEY, request("25.00"), this::charge);
+        store.execute(USER_ID + 1, KEY, request("25.00"), this::charge);
+
+        assertThat(charges).hasValue(2);
+    }
+
+    @Test
+    void concurrentRequestsWithSameKeyShareOneCharge() throws Exception {
+        CountDownLatch charging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, Payment> slowCharge = fingerprint -> {
+            charging.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return charge(fingerprint);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Payment> first = executor.submit(() -> store.execute(USER_ID, KEY, request("25.00"), slowCharge));
+            assertThat(charging.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Payment> second = executor.submit(() -> store.execute(USER_ID, KEY, request("25.00"), slowCharge));
+            // Give the second request time to find the first one in flight
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+            assertThat(charges).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedChargeIsNotStoredSoTheClientCanRetry() {
+        assertThatThrownBy(() -> store.execute(USER_ID, KEY, request("25.00"), fingerprint -> {
+            charges.incrementAndGet();
+            throw new RuntimeException("provider unavailable");
+        })).hasMessage("provider unavailable");
+
+        store.execute(USER_ID, KEY, request("25.00"), this::charge);
+
+        assertThat(charges).hasValue(2);
+    }
+
+    private Payment charge(String fingerprint) {
+        Payment payment = Payment.builder()
+                .id((long) charges.incrementAndGet())
+                .userId(USER_ID)
+                .idempotencyKey(KEY)
+                .requestFingerprint(fingerprint)
+                .providerPaymentId("pi_" + charges.get())
+                .status("succeeded")
+                .success(true)
+                .build();
+        rows.put(USER_ID + ":" + KEY, payment);
+        return payment;
+    }
+
+    private static PaymentRequest request(String amount) {
+        return PaymentRequest.builder()
+                .amount(new BigDecimal(amount))
+                .currency("usd")
+                .paymentMethodId("pm_card_visa")
+                .paymentType("STRIPE")
+                .build();
+    }
+}
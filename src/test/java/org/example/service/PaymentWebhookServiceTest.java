@@ -0,0 +1,213 @@
+package org.example.service;
+
+import com.stripe.exception.SignatureVerificationException;
+import org.example.model.entity.Payment;
+import org.example.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentWebhookServiceTest {
+
+    private static final String SECRET = "whsec_test";
+    private static final String PAYMENT_ID = "pi_123";
+
+    private PaymentRepository paymentRepository;
+    private TransactionTemplate transactionTemplate;
+    private PaymentIdempotencyStore idempotencyStore;
+    private PaymentWebhookService service;
+    private List<Payment> payments;
+
+    @BeforeEach
+    void setUp() {
+        payments = new ArrayList<>();
+        paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.findByProviderPaymentIdIn(any())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return payments.stream().filter(payment -> ids.contains(payment.getProviderPaymentId())).toList();
+        });
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        idempotencyStore = mock(PaymentIdempotencyStore.class);
+        service = new PaymentWebhookService(paymentRepository, idempotencyStore, transactionTemplate, 100);
+        ReflectionTestUtils.setField(service, "webhookSecret", SECRET);
+        ReflectionTestUtils.setField(service, "batchSize", 50);
+        ReflectionTestUtils.setField(service, "unmatchedTtl", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void rejectsPayloadWithInvalidSignature() {
+        String payload = event("payment_intent.succeeded", 100);
+        String forged = signature(payload, "whsec_other");
+
+        assertThatThrownBy(() -> service.accept(payload, forged)).isInstanceOf(SignatureVerificationException.class);
+        assertThat(service.pendingUpdates()).isZero();
+    }
+
+    @Test
+    void rejectsPayloadAlteredAfterSigning() {
+        String payload = event("payment_intent.payment_failed", 100);
+        String signature = signature(payload, SECRET);
+
+        assertThatThrownBy(() -> service.accept(payload.replace("payment_failed", "succeeded"), signature))
+                .isInstanceOf(SignatureVerificationException.class);
+        assertThat(service.pendingUpdates()).isZero();
+    }
+
+    @Test
+    void appliesNewestEventWhenDeliveredOutOfOrder() throws Exception {
+        Payment payment = payment();
+        deliver("payment_intent.succeeded", 200);
+        deliver("payment_intent.processing", 100);
+
+        service.applyQueuedUpdates();
+
+        assertThat(payment.getStatus()).isEqualTo("succeeded");
+        assertThat(payment.isSuccess()).isTrue();
+        assertThat(payment.getLastEventCreated()).isEqualTo(200L);
+    }
+
+    @Test
+    void olderEventInLaterBatchDoesNotUndoNewerStatus() throws Exception {
+        Payment payment = payment();
+        deliver("payment_intent.succeeded", 200);
+        service.applyQueuedUpdates();
+
+        deliver("payment_intent.requires_action", 150);
+        service.applyQueuedUpdates();
+
+        assertThat(payment.getStatus()).isEqualTo("succeeded");
+        assertThat(payment.isSuccess()).isTrue();
+    }
+
+    @Test
+    void onlySucceededMarksPaymentSuccessful() throws Exception {
+        Payment payment = payment();
+        for (String type : List.of("payment_intent.processing", "payment_intent.requires_action")) {
+            deliver(type, payment.getLastEventCreated() == null ? 100 : payment.getLastEventCreated() + 1);
+            service.applyQueuedUpdates();
+            assertThat(payment.isSuccess()).as(type).isFalse();
+        }
+    }
+
+    @Test
+    void retriesBatchWhenTransactionFails() throws Exception {
+        Payment payment = payment();
+        doAnswer(invocation -> {
+            throw new QueryTimeoutException("lock timeout");
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        deliver("payment_intent.succeeded", 100);
+
+        service.applyQueuedUpdates();
+        assertThat(payment.getStatus()).isEqualTo("processing");
+        assertThat(service.deferredUpdates()).isEqualTo(1);
+
+        service.applyQueuedUpdates();
+        assertThat(payment.getStatus()).isEqualTo("succeeded");
+        assertThat(service.deferredUpdates()).isZero();
+    }
+
+    @Test
+    void evictsIdempotencyKeyOnlyOnceTheUpdateCommitted() throws Exception {
+        Payment payment = payment();
+        payment.setUserId(7L);
+        payment.setIdempotencyKey("order-42");
+        doAnswer(invocation -> {
+            throw new QueryTimeoutException("lock timeout");
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        deliver("payment_intent.succeeded", 100);
+
+        service.applyQueuedUpdates();
+        verify(idempotencyStore, never()).evict(any(), any());
+
+        service.applyQueuedUpdates();
+        verify(idempotencyStore).evict(7L, "order-42");
+    }
+
+    @Test
+    void keepsUpdateForPaymentNotSavedYet() throws Exception {
+        deliver("payment_intent.succeeded", 100);
+        service.applyQueuedUpdates();
+        assertThat(service.deferredUpdates()).isEqualTo(1);
+
+        Payment payment = payment();
+        service.applyQueuedUpdates();
+
+        assertThat(payment.getStatus()).isEqualTo("succeeded");
+        assertThat(service.deferredUpdates()).isZero();
+    }
+
+    @Test
+    void dropsUnmatchedUpdateAfterTtl() throws Exception {
+        ReflectionTestUtils.setField(service, "unmatchedTtl", Duration.ZERO);
+        deliver("payment_intent.succeeded", 100);
+        Thread.sleep(5);
+
+        service.applyQueuedUpdates();
+
+        assertThat(service.deferredUpdates()).isZero();
+    }
+
+    private Payment payment() {
+        Payment payment = Payment.builder().id(1L).providerPaymentId(PAYMENT_ID).status("processing").build();
+        payments.add(payment);
+        return payment;
+    }
+
+    private void deliver(String type, long created) throws SignatureVerificationException {
+        String payload = event(type, created);
+        assertThat(service.accept(payload, signature(payload, SECRET))).isTrue();
+    }
+
+    private static String event(String type, long created) {
+        return """
+                {"id":"evt_%s_%d","object":"event","api_version":"2023-10-16","created":%d,"type":"%s",
+                 "data":{"object":{"id":"%s","object":"payment_intent","status":"%s"}}}"""
+                .formatted(type, created, created, type, PAYMENT_ID, type.substring(type.lastIndexOf('.') + 1));
+    }
+
+    // Stripe-Signature header as Stripe builds it: HMAC-SHA256 over "timestamp.payload"
+    private static String signature(String payload, String secret) {
+        long timestamp = System.currentTimeMillis() / 1000;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] digest = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.service.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.example.controller.MailController;
+import org.example.dto.ApiResponse;
+import org.example.dto.EmailRequest;
+import org.example.repository.EmailOutboxRepository;
+import org.example.service.EmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher and connection pool against a GreenMail SMTP server.
+ * The pool opens each connection through {@code mailSender.getSession()}, so
+ * counting those calls counts SMTP connections.
+ */
+@Slf4j
+class EmailDispatcherGreenMailTest {
+
+    private static final int WORKERS = 4;
+    private static final int THROUGHPUT_MESSAGES = 500;
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool connectionPool;
+    private MailMessageFactory messageFactory;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = spy(smtpSender());
+        connectionPool = spy(new SmtpConnectionPool(mailSender, WORKERS));
+        // Messages are built on their own sender so only pool connections touch the spied one
+        messageFactory = new MailMessageFactory(smtpSender());
+        ReflectionTestUtils.setField(messageFactory, "fromEmail", "noreply@example.com");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        connectionPool.close();
+    }
+
+    @Test
+    void deliversMailOverOneReusedConnection() throws Exception {
+        dispatcher = new EmailDispatcher(connectionPool, 1, 10);
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(message(i), noDeadline()).get(10, TimeUnit.SECONDS);
+        }
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(5);
+        assertThat(received[0].getSubject()).isEqualTo("Message 0");
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("user0@example.com");
+        verify(mailSender, times(1)).getSession();
+    }
+
+    @Test
+    void retriesOnFreshConnectionWhenPooledOneIsBroken() throws Exception {
+        dispatcher = new EmailDispatcher(connectionPool, 1, 10);
+        // Passed the NOOP check when borrowed, then the server dropped it
+        Transport broken = mock(Transport.class);
+        doThrow(new MessagingException("Connection reset")).when(broken).sendMessage(any(), any());
+        doReturn(broken).doCallRealMethod().when(connectionPool).borrow();
+
+        dispatcher.submit(message(0), noDeadline()).get(10, TimeUnit.SECONDS);
+
+        verify(connectionPool).release(broken, true);
+        verify(mailSender, times(1)).getSession();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void rejectsMessagesOnceTheQueueIsFull() throws Exception {
+        dispatcher = new EmailDispatcher(connectionPool, 1, 1);
+        CountDownLatch serverSlow = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            serverSlow.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(connectionPool).borrow();
+
+        // One message on the worker, one waiting in the queue
+        CompletableFuture<Void> sending = dispatcher.submit(message(0), noDeadline());
+        CompletableFuture<Void> queued = dispatcher.submit(message(1), noDeadline());
+        assertThatThrownBy(() -> dispatcher.submit(message(2), noDeadline()))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        serverSlow.countDown();
+        CompletableFuture.allOf(sending, queued).get(10, TimeUnit.SECONDS);
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void fullOutboxAnswersTooManyRequests() {
+        EmailOutboxRepository emailOutboxRepository = mock(EmailOutboxRepository.class);
+        when(emailOutboxRepository.countByStatusIn(anyCollection())).thenReturn(100L);
+        EmailService emailService = new EmailService(messageFactory, emailOutboxRepository, null, null);
+        ReflectionTestUtils.setField(emailService, "maxBacklog", 100L);
+
+        ResponseEntity<ApiResponse<String>> response = new MailController(emailService)
+                .sendEmail(new EmailRequest("user@example.com", "hi", "body", null, null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        verify(emailOutboxRepository, times(0)).save(any());
+    }
+
+    @Test
+    void measuresPooledAndConnectionPerMessageThroughput() throws Exception {
+        dispatcher = new EmailDispatcher(connectionPool, WORKERS, THROUGHPUT_MESSAGES);
+        JavaMailSenderImpl connectPerMessage = smtpSender();
+        // Warm up both paths before timing them
+        sendPooled(50);
+        for (int i = 0; i < 50; i++) {
+            connectPerMessage.send(message(i));
+        }
+        greenMail.purgeEmailFromAllMailboxes();
+
+        long start = System.nanoTime();
+        sendPooled(THROUGHPUT_MESSAGES);
+        double pooledRate = rate(THROUGHPUT_MESSAGES, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < THROUGHPUT_MESSAGES; i++) {
+            connectPerMessage.send(message(i));
+        }
+        double perMessageRate = rate(THROUGHPUT_MESSAGES, System.nanoTime() - start);
+
+        log.info("Pooled dispatcher ({} workers): {} msg/s, connection per message: {} msg/s",
+                WORKERS, Math.round(pooledRate), Math.round(perMessageRate));
+        assertThat(greenMail.getReceivedMessages()).hasSize(2 * THROUGHPUT_MESSAGES);
+        verify(mailSender, atMost(WORKERS)).getSession();
+    }
+
+    private void sendPooled(int count) throws Exception {
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sends.add(dispatcher.submit(message(i), noDeadline()));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+    }
+
+    private MimeMessage message(int i) {
+        return messageFactory.create("user" + i + "@example.com", "Message " + i, "Body " + i, null, null);
+    }
+
+    private static long noDeadline() {
+        return System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    }
+
+    private static double rate(int messages, long elapsedNanos) {
+        return messages / (elapsedNanos / 1e9);
+    }
+
+    private static JavaMailSenderImpl smtpSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(greenMail.getSmtp().getPort());
+        return sender;
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.service.mail;
+
+import jakarta.mail.internet.MimeMessage;
+import org.example.model.entity.EmailOutbox;
+import org.example.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private EmailOutboxRepository emailOutboxRepository;
+    private EmailDispatcher emailDispatcher;
+    private OutboxDispatcher outboxDispatcher;
+    private List<List<EmailOutbox>> saved;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository = mock(EmailOutboxRepository.class);
+        emailDispatcher = mock(EmailDispatcher.class);
+        MailMessageFactory messageFactory = mock(MailMessageFactory.class);
+        when(messageFactory.create(anyString(), any(), any(), isNull(), isNull())).thenReturn(mock(MimeMessage.class));
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        saved = new ArrayList<>();
+        when(emailOutboxRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<EmailOutbox> emails = new ArrayList<>(invocation.getArgument(0));
+            saved.add(emails);
+            return emails;
+        });
+
+        outboxDispatcher = new OutboxDispatcher(emailOutboxRepository, emailDispatcher, messageFactory, transactionTemplate);
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(outboxDispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(outboxDispatcher, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(outboxDispatcher, "maxBackoff", Duration.ofHours(1));
+        ReflectionTestUtils.setField(outboxDispatcher, "lease", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void claimsNoMoreRowsThanTheDispatcherCanTake() {
+        when(emailDispatcher.freeCapacity()).thenReturn(3);
+        when(emailOutboxRepository.findDueForUpdate(any(), any(), eq(PageRequest.of(0, 3)))).thenReturn(emails(3));
+        when(emailDispatcher.submit(any(), anyLong())).thenReturn(new CompletableFuture<>());
+
+        outboxDispatcher.dispatchDue();
+
+        verify(emailOutboxRepository).findDueForUpdate(any(), any(), eq(PageRequest.of(0, 3)));
+        verify(emailOutboxRepository, never()).findDueForUpdate(any(), any(), eq(PageRequest.of(0, 50)));
+    }
+
+    @Test
+    void claimsNothingWhileTheDispatcherIsFull() {
+        when(emailDispatcher.freeCapacity()).thenReturn(0);
+
+        outboxDispatcher.dispatchDue();
+
+        verify(emailOutboxRepository, never()).findDueForUpdate(any(), any(), any());
+    }
+
+    @Test
+    void releasesRowWhoseSendDidNotStartInTime() {
+        List<EmailOutbox> batch = emails(1);
+        when(emailDispatcher.freeCapacity()).thenReturn(1, 0);
+        when(emailOutboxRepository.findDueForUpdate(any(), any(), any())).thenReturn(batch);
+        when(emailDispatcher.submit(any(), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new CancellationException("Not started before its deadline")));
+
+        outboxDispatcher.dispatchDue();
+        outboxDispatcher.dispatchDue();
+
+        EmailOutbox email = saved.get(0).get(0);
+        assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(email.getAttempts()).isZero();
+    }
+
+    @Test
+    void dropsOutcomeOfRowClaimedAgainMeanwhile() {
+        List<EmailOutbox> batch = emails(2);
+        when(emailDispatcher.freeCapacity()).thenReturn(2, 0, 0);
+        when(emailOutboxRepository.findDueForUpdate(any(), any(), any())).thenReturn(batch);
+        when(emailDispatcher.submit(any(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
+        doThrow(new ObjectOptimisticLockingFailureException(EmailOutbox.class, 1L)).when(emailOutboxRepository).saveAll(any());
+        doThrow(new ObjectOptimisticLockingFailureException(EmailOutbox.class, 1L)).when(emailOutboxRepository).save(batch.get(0));
+
+        outboxDispatcher.dispatchDue();
+        outboxDispatcher.dispatchDue();
+        outboxDispatcher.dispatchDue();
+
+        verify(emailOutboxRepository).save(batch.get(1));
+        // The stale outcome is not queued again for the next poll
+        verify(emailOutboxRepository).saveAll(any());
+    }
+
+    @Test
+    void dispatcherSkipsMessageStillQueuedAtItsDeadline() throws Exception {
+        SmtpConnectionPool connectionPool = mock(SmtpConnectionPool.class);
+        EmailDispatcher dispatcher = new EmailDispatcher(connectionPool, 1, 10);
+        try {
+            CompletableFuture<Void> send = dispatcher.submit(mock(MimeMessage.class), System.nanoTime() - 1);
+
+            assertThatThrownBy(() -> send.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+            verify(connectionPool, never()).borrow();
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static List<EmailOutbox> emails(int count) {
+        return IntStream.range(0, count).mapToObj(i -> EmailOutbox.builder()
+                .id((long) i + 1)
+                .messageId(UUID.randomUUID().toString())
+                .recipient("user" + i + "@example.com")
+                .subject("hi")
+                .body("body")
+                .status(EmailOutbox.Status.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build()).toList();
+    }
+}